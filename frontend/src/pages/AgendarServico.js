@@ -1,4 +1,4 @@
-import React, { useState, useEffect, useCallback } from 'react';
+import React, { useState, useEffect, useCallback, useRef } from 'react';
 import {
   Container,
   Typography,
@@ -24,7 +24,7 @@ import { AdapterDayjs } from '@mui/x-date-pickers/AdapterDayjs';
 import dayjs from 'dayjs';
 import 'dayjs/locale/pt-br';
 import { toast } from 'react-toastify';
-import { tipoServicoService, barbeiroService, agendamentoService } from '../services/api';
+import { tipoServicoService, barbeiroService, agendamentoService, novaChaveIdempotencia } from '../services/api';
 
 dayjs.locale('pt-br');
 
@@ -44,11 +44,17 @@ const AgendarServico = () => {
   const [loading, setLoading] = useState(false);
   const [loadingData, setLoadingData] = useState(true);
   const [errors, setErrors] = useState({});
+  // Mesma chave enquanto o formulário não muda: reenviar após um timeout não duplica a marcação
+  const chaveIdempotencia = useRef(null);
 
   useEffect(() => {
     carregarDados();
   }, []);
 
+  useEffect(() => {
+    chaveIdempotencia.current = null;
+  }, [formData]);
+
   const calcularValorTotal = useCallback(async () => {
     try {
       const response = await agendamentoService.calcularValor(formData.servicoIds);
@@ -158,7 +164,10 @@ const AgendarServico = () => {
         dataHorario: formData.dataHorario.format('YYYY-MM-DDTHH:mm:ss'),
       };
 
-      await agendamentoService.criar(agendamentoData);
+      if (!chaveIdempotencia.current) {
+        chaveIdempotencia.current = novaChaveIdempotencia();
+      }
+      await agendamentoService.criar(agendamentoData, chaveIdempotencia.current);
       
       toast.success('Agendamento realizado com sucesso! Aguarde a confirmação do barbeiro.');
       
@@ -45,7 +45,8 @@ import { useNavigate } from 'react-router-dom';
 import { toast } from 'react-toastify';
 import { 
   barbeiroService, 
-  agendamentoService 
+  renovarSessao,
+  sessao
 } from '../services/api';
 
 const DashboardBarbeiro = () => {
@@ -59,30 +60,22 @@ const DashboardBarbeiro = () => {
   const [responseDialog, setResponseDialog] = useState({ open: false, type: '' });
   const [responseMotivo, setResponseMotivo] = useState('');
   const [tabValue, setTabValue] = useState(0);
+  const [conexaoEventos, setConexaoEventos] = useState(0);
   const navigate = useNavigate();
 
   const carregarDados = useCallback(async () => {
     try {
       const barbeiroData = JSON.parse(localStorage.getItem('barbeiro'));
       
-      // Carregar todos os agendamentos e filtrar os do barbeiro
-      const agendamentosResponse = await agendamentoService.listarTodos();
-      const todosAgendamentos = agendamentosResponse.data || [];
-      
-      // Filtrar agendamentos pendentes do barbeiro
-      const meusPendentes = todosAgendamentos.filter(
-        ag => ag.barbeiro?.id === barbeiroData.id && ag.status === 'PENDENTE'
-      );
-      setAgendamentosPendentes(meusPendentes);
-
-      // Filtrar agendamentos confirmados do barbeiro (todos, não apenas hoje)
-      const meusConfirmados = todosAgendamentos.filter(
-        ag => ag.barbeiro?.id === barbeiroData.id && ag.status === 'CONFIRMADO'
+      // Perfil, agenda da semana, pendentes e não lidas numa só requisição
+      const { data: painel } = await barbeiroService.carregarPainel(barbeiroData.id);
+      setAgendamentosPendentes(painel.pendentes || []);
+      setAgendamentosConfirmados(
+        (painel.agendaSemanal || []).filter(ag => ag.status === 'CONFIRMADO')
       );
-      setAgendamentosConfirmados(meusConfirmados);
 
-      // Definir mensagens como 0 por enquanto (funcionalidade futura)
-      setMensagensNaoLidas(0);
+      // Contagem inicial; os eventos em tempo real aplicam os deltas a partir daqui
+      setMensagensNaoLidas(painel.mensagensNaoLidas || 0);
 
     } catch (error) {
       console.error('Erro ao carregar dados:', error);
@@ -105,6 +98,42 @@ const DashboardBarbeiro = () => {
     carregarDados();
   }, [navigate, carregarDados]);
 
+  // Atualizações em tempo real: mudanças na agenda recarregam os dados, mensagens chegam como deltas
+  useEffect(() => {
+    if (!barbeiro) return undefined;
+    const eventos = barbeiroService.abrirEventos(barbeiro.id);
+    if (!eventos) return undefined;
+
+    const recarregar = () => carregarDados();
+    [
+      'agendamento-criado',
+      'agendamento-alterado',
+      'agendamento-cancelado',
+      'agendamento-confirmado',
+      'agendamento-recusado',
+      'resincronizar',
+    ].forEach((nome) => eventos.addEventListener(nome, recarregar));
+
+    eventos.addEventListener('nao-lidas', (evento) => {
+      const { delta } = JSON.parse(evento.data);
+      setMensagensNaoLidas((atual) => Math.max(0, atual + delta));
+    });
+
+    // O servidor recusa o stream quando o token expira: renova e abre uma nova conexão
+    eventos.onerror = () => {
+      if (eventos.readyState === EventSource.CLOSED) {
+        renovarSessao()
+          .then(() => {
+            carregarDados();
+            setConexaoEventos((atual) => atual + 1);
+          })
+          .catch(() => navigate('/barbeiro/login'));
+      }
+    };
+
+    return () => eventos.close();
+  }, [barbeiro, carregarDados, conexaoEventos, navigate]);
+
   const isToday = (date) => {
     const today = new Date();
     return date.getDate() === today.getDate() &&
@@ -115,6 +144,7 @@ const DashboardBarbeiro = () => {
   const handleLogout = () => {
     localStorage.removeItem('barbeiro');
     localStorage.removeItem('isLoggedIn');
+    sessao.limpar();
     toast.info('Logout realizado com sucesso');
     navigate('/');
   };
@@ -299,7 +329,7 @@ const DashboardBarbeiro = () => {
                 <Box display="flex" alignItems="center" justifyContent="space-between">
                   <Box>
                     <Typography color="textSecondary" gutterBottom>
-                      Agendamentos Confirmados
+                      Agendamentos Confirmados da Semana
                     </Typography>
                     <Typography variant="h4" component="div">
                       {stats.totalConfirmados}
@@ -368,7 +398,7 @@ const DashboardBarbeiro = () => {
                           <TableCell>
                             <Box>
                               <Typography variant="body2" fontWeight="medium">
-                                {agendamento.cliente?.nome}
+                                {agendamento.cliente?.nomeCompleto}
                               </Typography>
                               <Typography variant="caption" color="text.secondary">
                                 {agendamento.cliente?.email}
@@ -428,12 +458,12 @@ const DashboardBarbeiro = () => {
           <Card>
             <CardContent>
               <Typography variant="h6" gutterBottom>
-                Agendamentos Confirmados
+                Agendamentos Confirmados da Semana
               </Typography>
               
               {agendamentosConfirmados.length === 0 ? (
                 <Alert severity="info">
-                  Nenhum agendamento confirmado no momento.
+                  Nenhum agendamento confirmado nesta semana.
                 </Alert>
               ) : (
                 <TableContainer>
@@ -512,7 +542,7 @@ const DashboardBarbeiro = () => {
           {selectedAgendamento && (
             <Box sx={{ mb: 2 }}>
               <Typography variant="body1" gutterBottom>
-                <strong>Cliente:</strong> {selectedAgendamento.cliente?.nome}
+                <strong>Cliente:</strong> {selectedAgendamento.cliente?.nomeCompleto}
               </Typography>
               <Typography variant="body1" gutterBottom>
                 <strong>Data/Hora:</strong> {formatDateTime(selectedAgendamento.dataHorario)}
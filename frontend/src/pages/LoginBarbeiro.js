@@ -20,7 +20,7 @@ import {
 } from '@mui/icons-material';
 import { useNavigate } from 'react-router-dom';
 import { toast } from 'react-toastify';
-import { barbeiroService } from '../services/api';
+import { barbeiroService, sessao } from '../services/api';
 
 const LoginBarbeiro = () => {
   const [formData, setFormData] = useState({
@@ -69,6 +69,7 @@ const LoginBarbeiro = () => {
         // Salvar dados do barbeiro no localStorage
         localStorage.setItem('barbeiro', JSON.stringify(response.data.barbeiro));
         localStorage.setItem('isLoggedIn', 'true');
+        sessao.salvar(response.data);
         
         toast.success(`Bem-vindo, ${response.data.barbeiro.nome}!`);
         navigate('/barbeiro/dashboard');
@@ -82,6 +83,8 @@ const LoginBarbeiro = () => {
         setError('Login ou senha incorretos');
       } else if (error.response?.status === 404) {
         setError('Usuário não encontrado');
+      } else if (error.response?.status === 429 || error.response?.status === 503) {
+        setError(error.response.data?.message || 'Muitas tentativas de login. Aguarde e tente novamente.');
       } else {
         setError('Erro ao fazer login. Tente novamente.');
       }
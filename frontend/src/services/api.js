@@ -36,10 +36,70 @@ const api = axios.create({
   timeout: 10000,
 });
 
+// Sessão do barbeiro: token de acesso curto enviado em toda requisição, renovado com o refresh token
+export const sessao = {
+  salvar: ({ accessToken, refreshToken }) => {
+    localStorage.setItem('accessToken', accessToken);
+    localStorage.setItem('refreshToken', refreshToken);
+  },
+  limpar: () => {
+    localStorage.removeItem('accessToken');
+    localStorage.removeItem('refreshToken');
+  },
+  accessToken: () => localStorage.getItem('accessToken'),
+};
+
+let renovacaoEmAndamento = null;
+
+// Várias requisições que expiram juntas compartilham a mesma renovação
+export const renovarSessao = () => {
+  const refreshToken = localStorage.getItem('refreshToken');
+  if (!refreshToken) {
+    return Promise.reject(new Error('Sem sessão'));
+  }
+  if (!renovacaoEmAndamento) {
+    renovacaoEmAndamento = axios.post(`${API_BASE_URL}/barbeiros/refresh`, { refreshToken })
+      .then((response) => {
+        sessao.salvar(response.data);
+        return response.data.accessToken;
+      })
+      .catch((error) => {
+        sessao.limpar();
+        throw error;
+      })
+      .finally(() => {
+        renovacaoEmAndamento = null;
+      });
+  }
+  return renovacaoEmAndamento;
+};
+
+// Uma chave por operação: reenviar a mesma requisição com a mesma chave não executa de novo no servidor
+export const novaChaveIdempotencia = () => (window.crypto?.randomUUID
+  ? window.crypto.randomUUID()
+  : `${Date.now()}-${Math.random().toString(36).slice(2)}`);
+
+const comIdempotencia = (chave) => ({ headers: { 'Idempotency-Key': chave } });
+
+api.interceptors.request.use((config) => {
+  const token = sessao.accessToken();
+  if (token) {
+    config.headers.Authorization = `Bearer ${token}`;
+  }
+  return config;
+});
+
 // Interceptors para tratamento de erros
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
+  async (error) => {
+    const original = error.config;
+    if (error.response?.status === 401 && original && !original._renovado && localStorage.getItem('refreshToken')) {
+      original._renovado = true;
+      const token = await renovarSessao();
+      original.headers.Authorization = `Bearer ${token}`;
+      return api(original);
+    }
     console.error('Erro na API:', error);
     if (error.code === 'ECONNABORTED') {
       console.error('Timeout na requisição');
@@ -82,12 +142,18 @@ export const barbeiroService = {
   verAgendamentosPendentes: (id) => DEMO_MODE ? 
     mockApiCall([]) : 
     api.get(`/barbeiros/${id}/pendentes`),
-  responderAgendamento: (barbeiroId, agendamentoId, aceitar, motivo) => DEMO_MODE ?
+  carregarPainel: (id, inicioSemana) => DEMO_MODE ?
+    mockApiCall({ barbeiro: MOCK_DATA.barbeiros.find(b => b.id === id), agendaSemanal: [], pendentes: [], mensagensNaoLidas: 0 }) :
+    api.get(`/barbeiros/${id}/dashboard`, { params: { data: inicioSemana } }),
+  responderAgendamento: (barbeiroId, agendamentoId, aceitar, motivo, chave = novaChaveIdempotencia()) => DEMO_MODE ?
     mockApiCall({ success: true }) :
     api.put(`/barbeiros/${barbeiroId}/agendamentos/${agendamentoId}/responder`, {
       aceitar,
       motivo
-    }),
+    }, comIdempotencia(chave)),
+  // Stream SSE do painel; o navegador reconecta sozinho enviando Last-Event-ID
+  abrirEventos: (id) => DEMO_MODE ? null : new EventSource(
+    `${API_BASE_URL}/barbeiros/${id}/eventos?access_token=${encodeURIComponent(sessao.accessToken() || '')}`),
 };
 
 // Serviços de Cliente
@@ -103,16 +169,17 @@ export const clienteService = {
 
 // Serviços de Agendamento
 export const agendamentoService = {
-  criar: (agendamento) => DEMO_MODE ? 
+  criar: (agendamento, chave = novaChaveIdempotencia()) => DEMO_MODE ? 
     mockApiCall({
       ...agendamento, 
       id: Date.now(),
       status: 'PENDENTE',
       dataCriacao: new Date().toISOString()
     }) : 
-    api.post('/agendamentos', agendamento),
+    api.post('/agendamentos', agendamento, comIdempotencia(chave)),
   buscarPorId: (id) => DEMO_MODE ? mockApiCall(null) : api.get(`/agendamentos/${id}`),
-  cancelar: (id, motivo) => DEMO_MODE ? mockApiCall({ success: true }) : api.put(`/agendamentos/${id}/cancelar`, { motivo }),
+  cancelar: (id, motivo, chave = novaChaveIdempotencia()) => DEMO_MODE ? mockApiCall({ success: true }) :
+    api.put(`/agendamentos/${id}/cancelar`, { motivo }, comIdempotencia(chave)),
   calcularValor: (servicoIds) => DEMO_MODE ? 
     mockApiCall({ 
       valorTotal: servicoIds.reduce((total, id) => {
@@ -131,9 +198,10 @@ export const agendamentoService = {
 
 // Serviços de Mensagem
 export const mensagemService = {
-  buscarNaoLidas: (barbeiroId) => DEMO_MODE ? mockApiCall([]) : api.get(`/mensagens/barbeiro/${barbeiroId}/nao-lidas`),
-  buscarPorBarbeiro: (barbeiroId) => DEMO_MODE ? mockApiCall([]) : api.get(`/mensagens/barbeiro/${barbeiroId}`),
+  buscarNaoLidas: (barbeiroId, cursor) => DEMO_MODE ? mockApiCall({ itens: [], proximoCursor: null }) : api.get(`/mensagens/barbeiro/${barbeiroId}/nao-lidas`, { params: { cursor } }),
+  buscarPorBarbeiro: (barbeiroId, cursor) => DEMO_MODE ? mockApiCall({ itens: [], proximoCursor: null }) : api.get(`/mensagens/barbeiro/${barbeiroId}`, { params: { cursor } }),
   marcarComoLida: (mensagemId) => DEMO_MODE ? mockApiCall({ success: true }) : api.put(`/mensagens/${mensagemId}/lida`),
+  marcarComoLidas: (barbeiroId, ids) => DEMO_MODE ? mockApiCall({ atualizadas: ids.length }) : api.put(`/mensagens/barbeiro/${barbeiroId}/lidas`, ids),
   marcarTodasComoLidas: (barbeiroId) => DEMO_MODE ? mockApiCall({ success: true }) : api.put(`/mensagens/barbeiro/${barbeiroId}/marcar-todas-lidas`),
   contarNaoLidas: (barbeiroId) => DEMO_MODE ? mockApiCall({ count: 0 }) : api.get(`/mensagens/barbeiro/${barbeiroId}/count-nao-lidas`),
 };
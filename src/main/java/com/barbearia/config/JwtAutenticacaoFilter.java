@@ -0,0 +1,65 @@
+package com.barbearia.config;
+
+import com.barbearia.service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Lê o token de acesso do cabeçalho Authorization e, se for válido, autentica a requisição
+ * com a sessão do barbeiro. Token ausente ou inválido deixa a requisição anônima; as regras
+ * do {@link SecurityConfig} decidem o que ela pode acessar.
+ */
+public class JwtAutenticacaoFilter extends OncePerRequestFilter {
+
+    private static final String PREFIXO = "Bearer ";
+
+    // EventSource não envia cabeçalhos: o stream SSE recebe o token pela query string
+    private static final String PARAMETRO_TOKEN = "access_token";
+
+    private final TokenService tokenService;
+
+    public JwtAutenticacaoFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = extrairToken(request);
+        if (token != null) {
+            tokenService.validarAcesso(token).ifPresent(sessao -> {
+                UsernamePasswordAuthenticationToken autenticacao = new UsernamePasswordAuthenticationToken(
+                    sessao, null, AuthorityUtils.createAuthorityList("ROLE_BARBEIRO"));
+                SecurityContextHolder.getContext().setAuthentication(autenticacao);
+            });
+        }
+        chain.doFilter(request, response);
+    }
+
+    // Sem sessão, o despacho que entrega uma resposta assíncrona chega sem autenticação e passa
+    // de novo pelas regras: o token é validado outra vez
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private String extrairToken(HttpServletRequest request) {
+        String cabecalho = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecalho != null && cabecalho.startsWith(PREFIXO)) {
+            return cabecalho.substring(PREFIXO.length());
+        }
+        if (request.getRequestURI().endsWith("/eventos")) {
+            return request.getParameter(PARAMETRO_TOKEN);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.barbearia.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Envia transações somente leitura para a réplica e todo o resto para o primário.
+ * Precisa estar atrás de um LazyConnectionDataSourceProxy para que a conexão só seja
+ * obtida depois que a transação já marcou se é somente leitura.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    public enum Destino {
+        PRIMARIO, REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Destino.REPLICA : Destino.PRIMARIO;
+    }
+}
@@ -1,26 +1,63 @@
 package com.barbearia.config;
 
+import com.barbearia.service.TokenService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    @Autowired
+    private TokenService tokenService;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+            // Sem sessão no servidor: cada requisição traz o próprio token
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .addFilterBefore(new JwtAutenticacaoFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
+            .exceptionHandling(erros -> erros.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
             .authorizeHttpRequests(auth -> auth
+                .requestMatchers(antMatcher(HttpMethod.OPTIONS, "/**")).permitAll()
+                // Agenda, painel, respostas, eventos e mensagens: só o próprio barbeiro
+                .requestMatchers(
+                    antMatcher("/api/barbeiros/{barbeiroId}/pendentes"),
+                    antMatcher("/api/barbeiros/{barbeiroId}/agenda-semanal"),
+                    antMatcher("/api/barbeiros/{barbeiroId}/dashboard"),
+                    antMatcher("/api/barbeiros/{barbeiroId}/eventos"),
+                    antMatcher("/api/barbeiros/{barbeiroId}/agendamentos/**"),
+                    antMatcher("/api/mensagens/barbeiro/{barbeiroId}/**")
+                ).access(mesmoBarbeiro())
+                .requestMatchers(antMatcher("/api/mensagens/**")).authenticated()
+                // Importação, exportação em massa e diagnósticos: qualquer barbeiro autenticado
+                .requestMatchers(
+                    antMatcher("/api/importacao/**"),
+                    antMatcher("/api/agendamentos/exportar"),
+                    antMatcher("/api/cache/**"),
+                    antMatcher("/api/barbeiros/login/estatisticas")
+                ).authenticated()
                 .anyRequest().permitAll()
             )
             .headers(headers -> headers
@@ -30,6 +67,16 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Compara o barbeiro do token com o {barbeiroId} do caminho, sem consultar o banco
+    private AuthorizationManager<RequestAuthorizationContext> mesmoBarbeiro() {
+        return (autenticacao, contexto) -> {
+            Object principal = autenticacao.get().getPrincipal();
+            String barbeiroId = contexto.getVariables().get("barbeiroId");
+            return new AuthorizationDecision(principal instanceof TokenService.Sessao sessao
+                && String.valueOf(sessao.barbeiroId()).equals(barbeiroId));
+        };
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -42,4 +89,4 @@ public class SecurityConfig {
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
-}
\ No newline at end of file
+}
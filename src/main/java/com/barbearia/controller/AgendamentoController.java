@@ -1,13 +1,32 @@
 package com.barbearia.controller;
 
-import com.barbearia.model.Agendamento;
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.CalculoValor;
+import com.barbearia.dto.FiltroAgendamento;
+import com.barbearia.dto.NovoAgendamento;
+import com.barbearia.dto.PaginaAgendamentos;
+import com.barbearia.dto.ValorTotal;
+import com.barbearia.model.StatusAgendamento;
 import com.barbearia.service.AgendamentoService;
+import com.barbearia.service.ExportacaoService;
+import com.barbearia.service.HorarioIndisponivelException;
+import com.barbearia.service.IdempotenciaService;
+import com.barbearia.service.VersaoRecursosService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -20,82 +39,151 @@ public class AgendamentoController {
     @Autowired
     private AgendamentoService agendamentoService;
     
+    @Autowired
+    private ExportacaoService exportacaoService;
+    
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+    
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+    
     @GetMapping
-    public ResponseEntity<List<Agendamento>> listarTodos() {
+    public ResponseEntity<List<AgendamentoResumo>> listarTodos(WebRequest webRequest) {
+        VersaoRecursosService.Versao versao = versaoAgendamentos();
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
         try {
-            List<Agendamento> agendamentos = agendamentoService.listarTodos();
-            return ResponseEntity.ok(agendamentos);
+            List<AgendamentoResumo> agendamentos = agendamentoService.listarTodos();
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(agendamentos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @GetMapping("/busca")
+    public ResponseEntity<?> pesquisar(@RequestParam(required = false) Long barbeiroId,
+                                       @RequestParam(required = false) StatusAgendamento status,
+                                       @RequestParam(required = false) String de,
+                                       @RequestParam(required = false) String ate,
+                                       @RequestParam(required = false) String emailCliente,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "50") int limite) {
+        try {
+            FiltroAgendamento filtro = new FiltroAgendamento(
+                barbeiroId,
+                status,
+                de != null ? LocalDateTime.parse(de) : null,
+                ate != null ? LocalDateTime.parse(ate) : null,
+                emailCliente
+            );
+            PaginaAgendamentos pagina = agendamentoService.pesquisar(filtro, cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/exportar")
+    public void exportar(@RequestParam(defaultValue = "ndjson") String formato,
+                         @RequestParam(required = false) Long barbeiroId,
+                         @RequestParam(required = false) String de,
+                         @RequestParam(required = false) String ate,
+                         HttpServletResponse response) throws IOException {
+        ExportacaoService.Formato formatoExportacao;
+        FiltroAgendamento filtro;
+        try {
+            formatoExportacao = ExportacaoService.Formato.valueOf(formato.toUpperCase());
+            filtro = new FiltroAgendamento(
+                barbeiroId,
+                null,
+                de != null ? LocalDateTime.parse(de) : null,
+                ate != null ? LocalDateTime.parse(ate) : null,
+                null
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Parâmetros de exportação inválidos");
+            return;
+        }
+        
+        String extensao = formatoExportacao == ExportacaoService.Formato.CSV ? "csv" : "ndjson";
+        response.setContentType(formatoExportacao == ExportacaoService.Formato.CSV
+            ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=agendamentos." + extensao);
+        exportacaoService.exportar(filtro, formatoExportacao, response.getOutputStream());
+    }
+    
     @GetMapping("/cliente/{email}")
-    public ResponseEntity<?> buscarPorEmailCliente(@PathVariable String email) {
+    public ResponseEntity<?> buscarPorEmailCliente(@PathVariable String email, WebRequest webRequest) {
+        VersaoRecursosService.Versao versao = versaoAgendamentos();
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
         try {
-            List<Agendamento> agendamentos = agendamentoService.buscarPorEmailCliente(email);
-            return ResponseEntity.ok(agendamentos);
+            List<AgendamentoResumo> agendamentos = agendamentoService.buscarPorEmailCliente(email);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(agendamentos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar agendamentos: " + e.getMessage());
         }
     }
     
     @GetMapping("/pendentes")
-    public ResponseEntity<List<Agendamento>> listarPendentes() {
+    public ResponseEntity<List<AgendamentoResumo>> listarPendentes(WebRequest webRequest) {
+        VersaoRecursosService.Versao versao = versaoAgendamentos();
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
         try {
-            List<Agendamento> agendamentos = agendamentoService.buscarAgendamentosPendentes();
-            return ResponseEntity.ok(agendamentos);
+            List<AgendamentoResumo> agendamentos = agendamentoService.buscarAgendamentosPendentes();
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(agendamentos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
     @GetMapping("/confirmados")
-    public ResponseEntity<List<Agendamento>> listarConfirmados() {
+    public ResponseEntity<List<AgendamentoResumo>> listarConfirmados(WebRequest webRequest) {
+        VersaoRecursosService.Versao versao = versaoAgendamentos();
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
         try {
-            List<Agendamento> agendamentos = agendamentoService.buscarAgendamentosConfirmados();
-            return ResponseEntity.ok(agendamentos);
+            List<AgendamentoResumo> agendamentos = agendamentoService.buscarAgendamentosConfirmados();
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(agendamentos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    // Com Idempotency-Key, uma nova tentativa da mesma marcação devolve a resposta da primeira
     @PostMapping
-    public ResponseEntity<?> criarAgendamento(@RequestBody Map<String, Object> request) {
-        try {
-            String nomeCliente = (String) request.get("nomeCliente");
-            String emailCliente = (String) request.get("emailCliente");
-            Long barbeiroId = Long.valueOf(request.get("barbeiroId").toString());
-            
-            List<?> rawServicoIds = (List<?>) request.get("servicoIds");
-            List<Long> servicoIds = rawServicoIds.stream()
-                .map(id -> {
-                    if (id instanceof Integer) {
-                        return ((Integer) id).longValue();
-                    } else if (id instanceof Long) {
-                        return (Long) id;
-                    } else {
-                        return Long.valueOf(id.toString());
-                    }
-                })
-                .collect(java.util.stream.Collectors.toList());
-            
-            LocalDateTime dataHorario = LocalDateTime.parse((String) request.get("dataHorario"));
-            String observacoes = (String) request.get("observacoes");
-            
-            Agendamento agendamento = agendamentoService.criarAgendamento(
-                nomeCliente, emailCliente, barbeiroId, servicoIds, dataHorario, observacoes
-            );
-            
-            return ResponseEntity.ok(agendamento);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+    public ResponseEntity<?> criarAgendamento(@Valid @RequestBody NovoAgendamento request,
+                                              @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar(chaveIdempotencia, "agendamentos:criar", request, () -> {
+            try {
+                AgendamentoResumo agendamento = agendamentoService.agendar(request);
+                return ResponseEntity.ok(agendamento);
+            } catch (HorarioIndisponivelException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+            } catch (PessimisticLockingFailureException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Agenda do barbeiro ocupada, tente novamente");
+            } catch (DataIntegrityViolationException e) {
+                // Restrição de exclusão do PostgreSQL: outra instância gravou um horário sobreposto
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Barbeiro não está disponível neste horário");
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<?> buscarAgendamento(@PathVariable Long id) {
-        Optional<Agendamento> agendamento = agendamentoService.buscarPorId(id);
+        Optional<AgendamentoResumo> agendamento = agendamentoService.buscarResumoPorId(id);
         if (agendamento.isPresent()) {
             return ResponseEntity.ok(agendamento.get());
         }
@@ -103,36 +191,36 @@ public class AgendamentoController {
     }
     
     @PutMapping("/{id}/cancelar")
-    public ResponseEntity<?> cancelarAgendamento(@PathVariable Long id, @RequestBody Map<String, String> request) {
-        try {
-            String motivo = request.get("motivo");
-            boolean cancelado = agendamentoService.cancelarAgendamento(id, motivo);
-            return ResponseEntity.ok("Agendamento cancelado");
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+    public ResponseEntity<?> cancelarAgendamento(@PathVariable Long id, @RequestBody Map<String, String> request,
+                                                 @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar(chaveIdempotencia, "agendamentos:cancelar:" + id, request, () -> {
+            try {
+                String motivo = request.get("motivo");
+                boolean cancelado = agendamentoService.cancelarAgendamento(id, motivo);
+                return ResponseEntity.ok("Agendamento cancelado");
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
     }
     
     @PostMapping("/calcular-valor")
-    public ResponseEntity<?> calcularValorTotal(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<?> calcularValorTotal(@Valid @RequestBody CalculoValor request) {
         try {
-            List<?> rawServicoIds = (List<?>) request.get("servicoIds");
-            List<Long> servicoIds = rawServicoIds.stream()
-                .map(id -> {
-                    if (id instanceof Integer) {
-                        return ((Integer) id).longValue();
-                    } else if (id instanceof Long) {
-                        return (Long) id;
-                    } else {
-                        return Long.valueOf(id.toString());
-                    }
-                })
-                .collect(java.util.stream.Collectors.toList());
-            
-            double valorTotal = agendamentoService.calcularValorTotal(servicoIds);
-            return ResponseEntity.ok(Map.of("valorTotal", valorTotal));
+            double valorTotal = agendamentoService.calcularValorTotal(request.servicoIds());
+            return ResponseEntity.ok(new ValorTotal(valorTotal));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+    
+    // Listas de agendamentos mostram também nomes de clientes, barbeiros e serviços
+    private VersaoRecursosService.Versao versaoAgendamentos() {
+        return versaoRecursosService.versao(
+            VersaoRecursosService.Recurso.AGENDAMENTOS,
+            VersaoRecursosService.Recurso.CLIENTES,
+            VersaoRecursosService.Recurso.BARBEIROS,
+            VersaoRecursosService.Recurso.SERVICOS
+        );
+    }
 }
@@ -1,16 +1,42 @@
 package com.barbearia.controller;
 
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.BarbeiroAtivo;
+import com.barbearia.dto.RespostaAgendamento;
 import com.barbearia.model.Barbeiro;
-import com.barbearia.model.Agendamento;
 import com.barbearia.service.BarbeiroService;
+import com.barbearia.service.EventosBarbeiroService;
+import com.barbearia.service.IdempotenciaService;
+import com.barbearia.service.LoginRecusadoException;
+import com.barbearia.service.PainelBarbeiroService;
+import com.barbearia.service.TokenService;
+import com.barbearia.service.VerificacaoSenhaService;
+import com.barbearia.service.VersaoRecursosService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/barbeiros")
@@ -20,129 +46,245 @@ public class BarbeiroController {
     @Autowired
     private BarbeiroService barbeiroService;
     
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+    
+    @Autowired
+    private EventosBarbeiroService eventosBarbeiroService;
+    
+    @Autowired
+    private TokenService tokenService;
+    
+    @Autowired
+    private VerificacaoSenhaService verificacaoSenhaService;
+    
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+    
+    @Autowired
+    private PainelBarbeiroService painelBarbeiroService;
+    
+    @Value("${barbearia.painel.prazo-ms:5000}")
+    private long prazoPainelMs;
+    
+    // Assíncrono: a thread do servidor é liberada enquanto a senha espera o pool de verificação
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> credentials) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> credentials,
+                                                      HttpServletRequest request) {
         try {
             String login = credentials.get("login");
             String senha = credentials.get("senha");
             
-            if (barbeiroService.autenticarBarbeiro(login, senha)) {
-                Optional<Barbeiro> barbeiro = barbeiroService.buscarPorLogin(login);
-                if (barbeiro.isPresent()) {
-                    return ResponseEntity.ok(Map.of(
-                        "success", true,
-                        "barbeiro", barbeiro.get(),
-                        "message", "Login realizado com sucesso"
+            return barbeiroService.autenticarBarbeiro(login, senha, request.getRemoteAddr())
+                .<ResponseEntity<?>>thenApply(barbeiro -> {
+                    if (barbeiro.isPresent()) {
+                        TokenService.Tokens tokens = tokenService.emitir(barbeiro.get());
+                        return ResponseEntity.ok(Map.of(
+                            "success", true,
+                            "barbeiro", barbeiro.get(),
+                            "accessToken", tokens.accessToken(),
+                            "refreshToken", tokens.refreshToken(),
+                            "expiraEm", tokens.expiraEm(),
+                            "message", "Login realizado com sucesso"
+                        ));
+                    }
+                    
+                    return ResponseEntity.badRequest().body(Map.of(
+                        "success", false,
+                        "message", "Login ou senha inválidos"
                     ));
-                }
-            }
-            
-            return ResponseEntity.badRequest().body(Map.of(
-                "success", false,
-                "message", "Login ou senha inválidos"
-            ));
+                })
+                .exceptionally(this::falhaLogin);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of(
+            return CompletableFuture.completedFuture(falhaLogin(e));
+        }
+    }
+    
+    // 429 quando o login ou o IP esgotou as tentativas, 503 quando o pool de verificação está cheio
+    private ResponseEntity<?> falhaLogin(Throwable erro) {
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        if (causa instanceof LoginRecusadoException e) {
+            return ResponseEntity.status(e.isLimiteTentativas() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getSegundosParaNovaTentativa()))
+                .body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+                ));
+        }
+        return ResponseEntity.badRequest().body(Map.of(
+            "success", false,
+            "message", "Erro no login: " + causa.getMessage()
+        ));
+    }
+    
+    @GetMapping("/login/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticasLogin() {
+        return ResponseEntity.ok(verificacaoSenhaService.resumo());
+    }
+    
+    // Troca um token de renovação válido por um novo par, desde que o barbeiro siga ativo
+    @PostMapping("/refresh")
+    public ResponseEntity<?> renovarToken(@RequestBody Map<String, String> request) {
+        Optional<Barbeiro> barbeiro = tokenService.validarRenovacao(request.get("refreshToken"))
+            .flatMap(sessao -> barbeiroService.buscarPorId(sessao.barbeiroId()))
+            .filter(b -> Boolean.TRUE.equals(b.getAtivo()));
+        if (barbeiro.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
                 "success", false,
-                "message", "Erro no login: " + e.getMessage()
+                "message", "Sessão expirada, faça login novamente"
             ));
         }
+        
+        TokenService.Tokens tokens = tokenService.emitir(barbeiro.get());
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "accessToken", tokens.accessToken(),
+            "refreshToken", tokens.refreshToken(),
+            "expiraEm", tokens.expiraEm()
+        ));
     }
     
-    // Endpoint de teste para verificar senha
+    // Endpoint de teste para verificar senha; passa pelos mesmos limites do login
     @PostMapping("/test-password")
-    public ResponseEntity<?> testPassword(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<?>> testPassword(@RequestBody Map<String, String> request,
+                                                             HttpServletRequest httpRequest) {
         try {
             String login = request.get("login");
             String senha = request.get("senha");
             
-            Optional<Barbeiro> barbeiro = barbeiroService.buscarPorLogin(login);
-            if (barbeiro.isPresent()) {
-                boolean senhaCorreta = barbeiro.get().fazerLogin(login, senha);
-                return ResponseEntity.ok(Map.of(
-                    "login", login,
-                    "senhaCorreta", senhaCorreta,
-                    "barbeiroEncontrado", true
-                ));
-            } else {
-                return ResponseEntity.ok(Map.of(
-                    "login", login,
-                    "barbeiroEncontrado", false
-                ));
-            }
+            verificacaoSenhaService.admitir(login, httpRequest.getRemoteAddr());
+            return verificacaoSenhaService.verificar(login, httpRequest.getRemoteAddr(), senha,
+                    () -> barbeiroService.buscarPorLogin(login), Barbeiro::getSenha)
+                .<ResponseEntity<?>>thenApply(verificacao -> ResponseEntity.ok(verificacao.encontrado().isPresent()
+                    ? Map.of(
+                        "login", login,
+                        "senhaCorreta", verificacao.senhaCorreta(),
+                        "barbeiroEncontrado", true
+                    )
+                    : Map.of(
+                        "login", login,
+                        "barbeiroEncontrado", false
+                    )))
+                .exceptionally(this::falhaLogin);
+        } catch (LoginRecusadoException e) {
+            return CompletableFuture.completedFuture(falhaLogin(e));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Erro: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Erro: " + e.getMessage()));
         }
     }
     
     @GetMapping
-    public ResponseEntity<List<Barbeiro>> listarBarbeirosAtivos() {
-        List<Barbeiro> barbeiros = barbeiroService.listarBarbeirosAtivos();
-        return ResponseEntity.ok(barbeiros);
+    public ResponseEntity<List<BarbeiroAtivo>> listarBarbeirosAtivos(WebRequest webRequest) {
+        VersaoRecursosService.Versao versao = versaoRecursosService.versao(VersaoRecursosService.Recurso.BARBEIROS);
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
+        List<BarbeiroAtivo> barbeiros = barbeiroService.listarBarbeirosAtivos();
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(barbeiros);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarBarbeiro(@PathVariable Long id) {
+    public ResponseEntity<?> buscarBarbeiro(@PathVariable Long id, WebRequest webRequest) {
+        VersaoRecursosService.Versao versao = versaoRecursosService.versao(VersaoRecursosService.Recurso.BARBEIROS);
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
         Optional<Barbeiro> barbeiro = barbeiroService.buscarPorId(id);
         if (barbeiro.isPresent()) {
-            return ResponseEntity.ok(barbeiro.get());
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(barbeiro.get());
         }
         return ResponseEntity.notFound().build();
     }
     
     @GetMapping("/{id}/agenda-semanal")
-    public ResponseEntity<?> verAgendaSemanal(@PathVariable Long id, @RequestParam String data) {
+    public ResponseEntity<?> verAgendaSemanal(@PathVariable Long id, @RequestParam String data, WebRequest webRequest) {
+        // A versão da agenda do barbeiro muda a cada marcação, cancelamento ou resposta
+        VersaoRecursosService.Versao versao = versaoRecursosService.versaoAgenda(id);
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
         try {
             LocalDateTime inicioSemana = LocalDateTime.parse(data);
-            List<Agendamento> agenda = barbeiroService.verAgendaSemanal(id, inicioSemana);
-            return ResponseEntity.ok(agenda);
+            List<AgendamentoResumo> agenda = barbeiroService.verAgendaSemanal(id, inicioSemana);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(agenda);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
     
-    @GetMapping("/{id}/pendentes")
-    public ResponseEntity<?> verAgendamentosPendentes(@PathVariable Long id) {
+    // Tudo o que o painel mostra ao abrir; sem ETag porque o contador de não lidas não tem versão
+    @GetMapping("/{id}/dashboard")
+    public CompletableFuture<ResponseEntity<?>> painel(@PathVariable Long id,
+                                                       @RequestParam(required = false) String data) {
         try {
-            List<Agendamento> pendentes = barbeiroService.verAgendamentosPendentes(id);
-            return ResponseEntity.ok(pendentes);
+            LocalDateTime inicioSemana = data != null ? LocalDateTime.parse(data)
+                : LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            
+            return painelBarbeiroService.carregar(id, inicioSemana)
+                .orTimeout(prazoPainelMs, TimeUnit.MILLISECONDS)
+                .<ResponseEntity<?>>thenApply(painel -> painel.isPresent()
+                    ? ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(painel.get())
+                    : ResponseEntity.notFound().build())
+                .exceptionally(erro -> {
+                    Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                    // Prazo estourado ou pool de painéis cheio
+                    if (causa instanceof TimeoutException || causa instanceof RejectedExecutionException) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body("Painel indisponível no momento, tente novamente");
+                    }
+                    return ResponseEntity.badRequest().body(causa.getMessage());
+                });
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
         }
     }
     
-    @PutMapping("/{barbeiroId}/agendamentos/{agendamentoId}/responder")
-    public ResponseEntity<?> responderAgendamento(@PathVariable Long barbeiroId, 
-                                                 @PathVariable Long agendamentoId, 
-                                                 @RequestBody Map<String, Object> request) {
+    // Stream SSE do painel; o navegador reenvia Last-Event-ID ao reconectar
+    @GetMapping(value = "/{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventos(@PathVariable Long id,
+                              @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+        return eventosBarbeiroService.conectar(id, ultimoEventoId);
+    }
+    
+    @GetMapping("/{id}/pendentes")
+    public ResponseEntity<?> verAgendamentosPendentes(@PathVariable Long id, WebRequest webRequest) {
+        VersaoRecursosService.Versao versao = versaoRecursosService.versaoAgenda(id);
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
         try {
-            boolean aceitar = (Boolean) request.get("aceitar");
-            boolean sucesso = barbeiroService.responderAgendamento(barbeiroId, agendamentoId, aceitar);
-            
-            if (sucesso) {
-                String status = aceitar ? "confirmado" : "recusado";
-                return ResponseEntity.ok(Map.of("message", "Agendamento " + status + " com sucesso"));
-            } else {
-                return ResponseEntity.badRequest().body("Erro ao responder agendamento");
-            }
+            List<AgendamentoResumo> pendentes = barbeiroService.verAgendamentosPendentes(id);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(pendentes);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
     
-    // Endpoint temporário para gerar hash BCrypt
-    @PostMapping("/generate-hash/{password}")
-    public ResponseEntity<?> generateHash(@PathVariable String password) {
-        try {
-            org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder encoder = 
-                new org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder();
-            String hash = encoder.encode(password);
-            return ResponseEntity.ok(Map.of(
-                "password", password,
-                "hash", hash
-            ));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Erro: " + e.getMessage());
-        }
+    @PutMapping("/{barbeiroId}/agendamentos/{agendamentoId}/responder")
+    public ResponseEntity<?> responderAgendamento(@PathVariable Long barbeiroId, 
+                                                 @PathVariable Long agendamentoId, 
+                                                 @Valid @RequestBody RespostaAgendamento request,
+                                                 @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar(chaveIdempotencia,
+                "barbeiros:" + barbeiroId + ":responder:" + agendamentoId, request, () -> {
+            try {
+                boolean aceitar = request.aceitar();
+                boolean sucesso = barbeiroService.responderAgendamento(barbeiroId, agendamentoId, aceitar);
+                
+                if (sucesso) {
+                    String status = aceitar ? "confirmado" : "recusado";
+                    return ResponseEntity.ok(Map.of("message", "Agendamento " + status + " com sucesso"));
+                } else {
+                    return ResponseEntity.badRequest().body("Erro ao responder agendamento");
+                }
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
     }
 }
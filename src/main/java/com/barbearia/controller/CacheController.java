@@ -0,0 +1,31 @@
+package com.barbearia.controller;
+
+import com.barbearia.service.CoalescenciaService;
+import com.barbearia.service.EstatisticasCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    @Autowired
+    private EstatisticasCacheService estatisticasCacheService;
+
+    @Autowired
+    private CoalescenciaService coalescenciaService;
+
+    @GetMapping("/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        return ResponseEntity.ok(estatisticasCacheService.resumo());
+    }
+
+    @GetMapping("/coalescencia")
+    public ResponseEntity<Map<String, Object>> coalescencia() {
+        return ResponseEntity.ok(coalescenciaService.resumo());
+    }
+}
@@ -0,0 +1,36 @@
+package com.barbearia.controller;
+
+import com.barbearia.dto.DisponibilidadeBarbeiro;
+import com.barbearia.service.DisponibilidadeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/disponibilidade")
+@CrossOrigin(origins = "*")
+public class DisponibilidadeController {
+
+    @Autowired
+    private DisponibilidadeService disponibilidadeService;
+
+    @GetMapping
+    public ResponseEntity<?> buscarHorariosLivres(@RequestParam List<Long> servicoIds,
+                                                  @RequestParam(required = false) String de,
+                                                  @RequestParam(required = false) String ate,
+                                                  @RequestParam(defaultValue = "5") int limite) {
+        try {
+            LocalDateTime inicio = de != null ? LocalDateTime.parse(de) : LocalDateTime.now();
+            LocalDateTime fim = ate != null ? LocalDateTime.parse(ate) : inicio.plusDays(7);
+
+            List<DisponibilidadeBarbeiro> disponibilidade =
+                disponibilidadeService.buscarHorariosLivres(servicoIds, inicio, fim, limite);
+            return ResponseEntity.ok(disponibilidade);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
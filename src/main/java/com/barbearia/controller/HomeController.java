@@ -67,7 +67,12 @@ public class HomeController {
                 <span class="method post">POST</span> <strong>/api/agendamentos</strong>
                 <p>Cria um novo agendamento</p>
             </div>
-            
+
+            <div class="endpoint">
+                <span class="method get">GET</span> <strong>/api/disponibilidade?servicoIds=1,2&amp;de=...&amp;ate=...&amp;limite=5</strong>
+                <p>Lista os próximos horários livres de cada barbeiro para os serviços informados</p>
+            </div>
+
             <h2>Banco de Dados H2</h2>
             <p><a href="/h2-console" target="_blank">Acessar Console H2</a></p>
             <p><strong>JDBC URL:</strong> jdbc:h2:mem:barbearia</p>
@@ -0,0 +1,68 @@
+package com.barbearia.controller;
+
+import com.barbearia.dto.AgendamentoImportado;
+import com.barbearia.dto.ClienteImportado;
+import com.barbearia.dto.ResultadoImportacao;
+import com.barbearia.dto.TipoServicoImportado;
+import com.barbearia.service.HorarioIndisponivelException;
+import com.barbearia.service.ImportacaoService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/importacao")
+@CrossOrigin(origins = "*")
+public class ImportacaoController {
+
+    @Autowired
+    private ImportacaoService importacaoService;
+
+    @PostMapping("/clientes")
+    public ResponseEntity<?> importarClientes(@RequestBody @NotEmpty(message = "Nenhum registro para importar")
+                                              List<@Valid ClienteImportado> clientes) {
+        try {
+            ResultadoImportacao resultado = importacaoService.importarClientes(clientes);
+            return ResponseEntity.ok(resultado);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/servicos")
+    public ResponseEntity<?> importarTiposServico(@RequestBody @NotEmpty(message = "Nenhum registro para importar")
+                                                  List<@Valid TipoServicoImportado> tiposServico) {
+        try {
+            ResultadoImportacao resultado = importacaoService.importarTiposServico(tiposServico);
+            return ResponseEntity.ok(resultado);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Pendentes e confirmados disputam a agenda como uma marcação: conflito é 409 e nada é gravado
+    @PostMapping("/agendamentos")
+    public ResponseEntity<?> importarAgendamentos(@RequestBody @NotEmpty(message = "Nenhum registro para importar")
+                                                  List<@Valid AgendamentoImportado> agendamentos) {
+        try {
+            ResultadoImportacao resultado = importacaoService.importarAgendamentos(agendamentos);
+            return ResponseEntity.ok(resultado);
+        } catch (HorarioIndisponivelException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Agenda do barbeiro ocupada, tente novamente");
+        } catch (DataIntegrityViolationException e) {
+            // Restrição de exclusão do PostgreSQL: outra instância gravou um horário sobreposto
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Barbeiro não está disponível em um dos horários importados");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.barbearia.controller;
+
+import com.barbearia.dto.PaginaMensagens;
+import com.barbearia.service.MensagemService;
+import com.barbearia.service.TokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/mensagens")
+@CrossOrigin(origins = "*")
+public class MensagemController {
+    
+    @Autowired
+    private MensagemService mensagemService;
+    
+    @GetMapping("/barbeiro/{barbeiroId}")
+    public ResponseEntity<?> listarMensagens(@PathVariable Long barbeiroId,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "20") int limite) {
+        try {
+            PaginaMensagens pagina = mensagemService.buscarCaixaEntrada(barbeiroId, false, cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/barbeiro/{barbeiroId}/nao-lidas")
+    public ResponseEntity<?> listarNaoLidas(@PathVariable Long barbeiroId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "20") int limite) {
+        try {
+            PaginaMensagens pagina = mensagemService.buscarCaixaEntrada(barbeiroId, true, cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/barbeiro/{barbeiroId}/count-nao-lidas")
+    public ResponseEntity<?> contarNaoLidas(@PathVariable Long barbeiroId) {
+        return ResponseEntity.ok(Map.of("count", mensagemService.contarMensagensNaoLidas(barbeiroId)));
+    }
+    
+    @PutMapping("/{id}/lida")
+    public ResponseEntity<?> marcarComoLida(@PathVariable Long id,
+                                            @AuthenticationPrincipal TokenService.Sessao sessao) {
+        if (mensagemService.marcarComoLida(id, sessao.barbeiroId())) {
+            return ResponseEntity.ok(Map.of("message", "Mensagem marcada como lida"));
+        }
+        return ResponseEntity.notFound().build();
+    }
+    
+    @PutMapping("/barbeiro/{barbeiroId}/lidas")
+    public ResponseEntity<?> marcarComoLidas(@PathVariable Long barbeiroId, @RequestBody List<Long> ids) {
+        try {
+            int atualizadas = mensagemService.marcarComoLidas(barbeiroId, ids);
+            return ResponseEntity.ok(Map.of("atualizadas", atualizadas));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @PutMapping("/barbeiro/{barbeiroId}/marcar-todas-lidas")
+    public ResponseEntity<?> marcarTodasComoLidas(@PathVariable Long barbeiroId) {
+        int atualizadas = mensagemService.marcarTodasComoLidas(barbeiroId);
+        return ResponseEntity.ok(Map.of("atualizadas", atualizadas));
+    }
+}
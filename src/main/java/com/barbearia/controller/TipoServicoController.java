@@ -1,10 +1,14 @@
 package com.barbearia.controller;
 
+import com.barbearia.dto.ServicoAtivo;
 import com.barbearia.model.TipoServico;
 import com.barbearia.service.TipoServicoService;
+import com.barbearia.service.VersaoRecursosService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,17 +21,31 @@ public class TipoServicoController {
     @Autowired
     private TipoServicoService tipoServicoService;
     
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+    
     @GetMapping
-    public ResponseEntity<List<TipoServico>> listarServicosAtivos() {
-        List<TipoServico> servicos = tipoServicoService.listarAtivos();
-        return ResponseEntity.ok(servicos);
+    public ResponseEntity<List<ServicoAtivo>> listarServicosAtivos(WebRequest webRequest) {
+        // Catálogo sem alterações desde a última resposta: 304 sem consultar o banco
+        VersaoRecursosService.Versao versao = versaoRecursosService.versao(VersaoRecursosService.Recurso.SERVICOS);
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
+        List<ServicoAtivo> servicos = tipoServicoService.listarAtivos();
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(servicos);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarServico(@PathVariable Long id) {
+    public ResponseEntity<?> buscarServico(@PathVariable Long id, WebRequest webRequest) {
+        VersaoRecursosService.Versao versao = versaoRecursosService.versao(VersaoRecursosService.Recurso.SERVICOS);
+        if (webRequest.checkNotModified(versao.etag(), versao.ultimaAlteracao())) {
+            return null;
+        }
+        
         Optional<TipoServico> servico = tipoServicoService.buscarPorId(id);
         if (servico.isPresent()) {
-            return ResponseEntity.ok(servico.get());
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(servico.get());
         }
         return ResponseEntity.notFound().build();
     }
@@ -0,0 +1,45 @@
+package com.barbearia.controller;
+
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.method.ParameterErrors;
+import org.springframework.validation.method.ParameterValidationResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+
+/**
+ * Corpos tipados são validados antes de chegar ao método do controller; aqui as falhas de
+ * leitura e validação voltam no mesmo formato dos demais erros: 400 com a mensagem em texto.
+ */
+@RestControllerAdvice(assignableTypes = {AgendamentoController.class, BarbeiroController.class,
+    ImportacaoController.class})
+public class TratamentoErrosRequisicao {
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<String> invalido(MethodArgumentNotValidException e) {
+        FieldError erro = e.getBindingResult().getFieldError();
+        return ResponseEntity.badRequest().body(erro != null ? erro.getDefaultMessage() : "Requisição inválida");
+    }
+
+    // Listas de importação: cada item é validado e o erro indica a linha, contada a partir de 1
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<String> itemInvalido(HandlerMethodValidationException e) {
+        for (ParameterValidationResult resultado : e.getAllValidationResults()) {
+            for (MessageSourceResolvable erro : resultado.getResolvableErrors()) {
+                String linha = resultado instanceof ParameterErrors erros && erros.getContainerIndex() != null
+                    ? " (linha " + (erros.getContainerIndex() + 1) + ")" : "";
+                return ResponseEntity.badRequest().body(erro.getDefaultMessage() + linha);
+            }
+        }
+        return ResponseEntity.badRequest().body("Requisição inválida");
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<String> ilegivel(HttpMessageNotReadableException e) {
+        return ResponseEntity.badRequest().body("Corpo da requisição inválido");
+    }
+}
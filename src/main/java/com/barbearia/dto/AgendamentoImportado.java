@@ -0,0 +1,23 @@
+package com.barbearia.dto;
+
+import com.barbearia.model.StatusAgendamento;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record AgendamentoImportado(@NotBlank(message = "Nome do cliente é obrigatório") String nomeCliente,
+                                   @NotBlank(message = "Email do cliente é obrigatório")
+                                   @Email(message = "Email do cliente inválido") String emailCliente,
+                                   @NotNull(message = "Barbeiro é obrigatório") Long barbeiroId,
+                                   @NotEmpty(message = "Informe ao menos um serviço")
+                                   List<@NotNull(message = "Serviço inválido") Long> servicoIds,
+                                   @NotNull(message = "Data/hora é obrigatória") LocalDateTime dataHorario,
+                                   StatusAgendamento status,
+                                   @PositiveOrZero(message = "Valor total não pode ser negativo") Double valorTotal,
+                                   String observacoes) {
+}
@@ -0,0 +1,51 @@
+package com.barbearia.dto;
+
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.StatusAgendamento;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record AgendamentoResumo(Long id, ClienteResumo cliente, BarbeiroResumo barbeiro, List<ServicoResumo> servicos,
+                                LocalDateTime dataHorario, LocalDateTime dataFim, Double valorTotal,
+                                StatusAgendamento status, LocalDateTime dataCriacao, LocalDateTime dataResposta,
+                                String observacoes) {
+
+    // Usado pelas consultas JPQL; os serviços são carregados numa segunda consulta
+    public AgendamentoResumo(Long id, Long clienteId, String clienteNome, String clienteEmail,
+                             Long barbeiroId, String barbeiroNome, LocalDateTime dataHorario,
+                             LocalDateTime dataFim, Double valorTotal, StatusAgendamento status,
+                             LocalDateTime dataCriacao, LocalDateTime dataResposta, String observacoes) {
+        this(id, new ClienteResumo(clienteId, clienteNome, clienteEmail), new BarbeiroResumo(barbeiroId, barbeiroNome),
+            List.of(), dataHorario, dataFim, valorTotal, status, dataCriacao, dataResposta, observacoes);
+    }
+
+    // Agendamento recém-gravado: cliente, barbeiro e serviços já estão em memória, sem nova consulta
+    public static AgendamentoResumo de(Agendamento agendamento) {
+        return new AgendamentoResumo(
+            agendamento.getId(),
+            new ClienteResumo(agendamento.getCliente().getId(), agendamento.getCliente().getNomeCompleto(),
+                agendamento.getCliente().getEmail()),
+            new BarbeiroResumo(agendamento.getBarbeiro().getId(), agendamento.getBarbeiro().getNome()),
+            agendamento.getServicos().stream()
+                .map(s -> new ServicoResumo(s.getId(), s.getNome(), s.getPreco(), s.getDuracaoMinutos()))
+                .toList(),
+            agendamento.getDataHorario(), agendamento.getDataFim(), agendamento.getValorTotal(),
+            agendamento.getStatus(), agendamento.getDataCriacao(), agendamento.getDataResposta(),
+            agendamento.getObservacoes());
+    }
+
+    public AgendamentoResumo comServicos(List<ServicoResumo> servicos) {
+        return new AgendamentoResumo(id, cliente, barbeiro, servicos, dataHorario, dataFim, valorTotal,
+            status, dataCriacao, dataResposta, observacoes);
+    }
+
+    public record ClienteResumo(Long id, String nomeCompleto, String email) {
+    }
+
+    public record BarbeiroResumo(Long id, String nome) {
+    }
+
+    public record ServicoResumo(Long id, String nome, Double preco, Integer duracaoMinutos) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.barbearia.dto;
+
+import com.barbearia.model.StatusAgendamento;
+
+import java.time.LocalDateTime;
+
+public record AlteracaoAgenda(Long agendamentoId, StatusAgendamento status, LocalDateTime dataHorario,
+                              LocalDateTime dataFim, String clienteNome) {
+}
@@ -0,0 +1,4 @@
+package com.barbearia.dto;
+
+public record AlteracaoNaoLidas(long delta) {
+}
@@ -0,0 +1,14 @@
+package com.barbearia.dto;
+
+import com.barbearia.model.Barbeiro;
+
+import java.time.LocalDateTime;
+
+// Item da lista de barbeiros ativos; imutável porque a mesma lista é entregue a várias requisições
+public record BarbeiroAtivo(Long id, String nome, String login, Boolean ativo, LocalDateTime dataCriacao) {
+
+    public static BarbeiroAtivo de(Barbeiro barbeiro) {
+        return new BarbeiroAtivo(barbeiro.getId(), barbeiro.getNome(), barbeiro.getLogin(), barbeiro.getAtivo(),
+            barbeiro.getDataCriacao());
+    }
+}
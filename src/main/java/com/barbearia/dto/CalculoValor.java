@@ -0,0 +1,10 @@
+package com.barbearia.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public record CalculoValor(@NotEmpty(message = "Selecione ao menos um serviço")
+                           List<@NotNull(message = "Serviço inválido") Long> servicoIds) {
+}
@@ -0,0 +1,9 @@
+package com.barbearia.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+
+public record ClienteImportado(@NotBlank(message = "Nome completo é obrigatório") String nomeCompleto,
+                               @NotBlank(message = "Email é obrigatório")
+                               @Email(message = "Email deve ter um formato válido") String email) {
+}
@@ -0,0 +1,7 @@
+package com.barbearia.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record DisponibilidadeBarbeiro(Long barbeiroId, String barbeiroNome, List<LocalDateTime> horarios) {
+}
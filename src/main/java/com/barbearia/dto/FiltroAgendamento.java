@@ -0,0 +1,9 @@
+package com.barbearia.dto;
+
+import com.barbearia.model.StatusAgendamento;
+
+import java.time.LocalDateTime;
+
+public record FiltroAgendamento(Long barbeiroId, StatusAgendamento status, LocalDateTime de,
+                                LocalDateTime ate, String emailCliente) {
+}
@@ -0,0 +1,14 @@
+package com.barbearia.dto;
+
+import com.barbearia.model.TipoMensagem;
+
+import java.time.LocalDateTime;
+
+// Linha da caixa de entrada projetada direto da tabela, sem carregar agendamento nem destinatário
+public record MensagemResumo(Long id, String conteudo, LocalDateTime dataEnvio, Boolean lida,
+                             TipoMensagem tipo, Long agendamentoId) {
+
+    public MensagemResumo comoLida() {
+        return new MensagemResumo(id, conteudo, dataEnvio, true, tipo, agendamentoId);
+    }
+}
@@ -0,0 +1,19 @@
+package com.barbearia.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record NovoAgendamento(@NotBlank(message = "Nome do cliente é obrigatório") String nomeCliente,
+                              @NotBlank(message = "Email do cliente é obrigatório")
+                              @Email(message = "Email do cliente inválido") String emailCliente,
+                              @NotNull(message = "Barbeiro é obrigatório") Long barbeiroId,
+                              @NotEmpty(message = "Selecione ao menos um serviço")
+                              List<@NotNull(message = "Serviço inválido") Long> servicoIds,
+                              @NotNull(message = "Data/hora é obrigatória") LocalDateTime dataHorario,
+                              String observacoes) {
+}
@@ -0,0 +1,6 @@
+package com.barbearia.dto;
+
+import java.util.List;
+
+public record PaginaAgendamentos(List<AgendamentoResumo> itens, String proximoCursor) {
+}
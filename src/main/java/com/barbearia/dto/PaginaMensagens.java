@@ -0,0 +1,6 @@
+package com.barbearia.dto;
+
+import java.util.List;
+
+public record PaginaMensagens(List<MensagemResumo> itens, String proximoCursor) {
+}
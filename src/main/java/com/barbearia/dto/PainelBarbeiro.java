@@ -0,0 +1,17 @@
+package com.barbearia.dto;
+
+import com.barbearia.model.Barbeiro;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record PainelBarbeiro(Perfil barbeiro, LocalDateTime inicioSemana, List<AgendamentoResumo> agendaSemanal,
+                             List<AgendamentoResumo> pendentes, long mensagensNaoLidas) {
+
+    public record Perfil(Long id, String nome, String login, Boolean ativo) {
+
+        public static Perfil de(Barbeiro barbeiro) {
+            return new Perfil(barbeiro.getId(), barbeiro.getNome(), barbeiro.getLogin(), barbeiro.getAtivo());
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.barbearia.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public record RespostaAgendamento(@NotNull(message = "Informe se o agendamento foi aceito") Boolean aceitar) {
+}
@@ -0,0 +1,10 @@
+package com.barbearia.dto;
+
+public record ResultadoImportacao(String tipo, int registros, long duracaoMs, double registrosPorSegundo) {
+
+    public static ResultadoImportacao de(String tipo, int registros, long inicioNanos) {
+        long duracaoNanos = Math.max(1, System.nanoTime() - inicioNanos);
+        return new ResultadoImportacao(tipo, registros, duracaoNanos / 1_000_000,
+            Math.round(registros * 1_000_000_000.0 / duracaoNanos * 10) / 10.0);
+    }
+}
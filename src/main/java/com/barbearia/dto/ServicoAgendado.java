@@ -0,0 +1,8 @@
+package com.barbearia.dto;
+
+public record ServicoAgendado(Long agendamentoId, Long id, String nome, Double preco, Integer duracaoMinutos) {
+
+    public AgendamentoResumo.ServicoResumo resumo() {
+        return new AgendamentoResumo.ServicoResumo(id, nome, preco, duracaoMinutos);
+    }
+}
@@ -0,0 +1,12 @@
+package com.barbearia.dto;
+
+import com.barbearia.model.TipoServico;
+
+// Item do catálogo de serviços ativos; imutável porque a mesma lista é entregue a várias requisições
+public record ServicoAtivo(Long id, String nome, String descricao, Double preco, Integer duracaoMinutos, Boolean ativo) {
+
+    public static ServicoAtivo de(TipoServico tipoServico) {
+        return new ServicoAtivo(tipoServico.getId(), tipoServico.getNome(), tipoServico.getDescricao(),
+            tipoServico.getPreco(), tipoServico.getDuracaoMinutos(), tipoServico.getAtivo());
+    }
+}
@@ -0,0 +1,13 @@
+package com.barbearia.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record TipoServicoImportado(@NotBlank(message = "Nome do serviço é obrigatório") String nome,
+                                   String descricao,
+                                   @NotNull(message = "Preço é obrigatório")
+                                   @Positive(message = "Preço deve ser positivo") Double preco,
+                                   @Positive(message = "Duração deve ser positiva") Integer duracaoMinutos,
+                                   Boolean ativo) {
+}
@@ -12,20 +12,21 @@ import java.util.List;
 public class Agendamento {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agendamentos_seq")
+    @SequenceGenerator(name = "agendamentos_seq", sequenceName = "agendamentos_seq", allocationSize = 50)
     private Long id;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cliente_id", nullable = false)
-    @JsonIgnoreProperties({"agendamentos"})
+    @JsonIgnoreProperties({"agendamentos", "hibernateLazyInitializer", "handler"})
     private Cliente cliente;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "barbeiro_id", nullable = false)
-    @JsonIgnoreProperties({"agendamentos", "mensagens", "senha"})
+    @JsonIgnoreProperties({"agendamentos", "mensagens", "senha", "hibernateLazyInitializer", "handler"})
     private Barbeiro barbeiro;
     
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "agendamento_servicos",
         joinColumns = @JoinColumn(name = "agendamento_id"),
@@ -36,6 +37,10 @@ public class Agendamento {
     @Column(name = "data_horario", nullable = false)
     private LocalDateTime dataHorario;
     
+    // Fim do atendimento gravado junto para que o banco consiga detectar sobreposições
+    @Column(name = "data_fim", nullable = false)
+    private LocalDateTime dataFim;
+    
     @Column(name = "valor_total", nullable = false)
     private Double valorTotal;
     
@@ -52,6 +57,11 @@ public class Agendamento {
     @Column(name = "observacoes")
     private String observacoes;
     
+    // Horário do atendimento ao qual o último lembrete se referia
+    @JsonIgnore
+    @Column(name = "lembrete_enviado_para")
+    private LocalDateTime lembreteEnviadoPara;
+    
     @JsonIgnore
     @OneToMany(mappedBy = "agendamento", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Mensagem> mensagens;
@@ -125,6 +135,14 @@ public class Agendamento {
         return 30; // Duração padrão
     }
     
+    @PrePersist
+    @PreUpdate
+    public void calcularDataFim() {
+        if (dataHorario != null) {
+            this.dataFim = dataHorario.plusMinutes(getDuracaoTotal());
+        }
+    }
+    
     public boolean isConfirmado() {
         return StatusAgendamento.CONFIRMADO.equals(status);
     }
@@ -174,6 +192,10 @@ public class Agendamento {
         this.dataHorario = dataHorario;
     }
     
+    public LocalDateTime getDataFim() {
+        return dataFim;
+    }
+    
     public Double getValorTotal() {
         return valorTotal;
     }
@@ -214,6 +236,14 @@ public class Agendamento {
         this.observacoes = observacoes;
     }
     
+    public LocalDateTime getLembreteEnviadoPara() {
+        return lembreteEnviadoPara;
+    }
+    
+    public void setLembreteEnviadoPara(LocalDateTime lembreteEnviadoPara) {
+        this.lembreteEnviadoPara = lembreteEnviadoPara;
+    }
+    
     public List<Mensagem> getMensagens() {
         return mensagens;
     }
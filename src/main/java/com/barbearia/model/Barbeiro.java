@@ -1,6 +1,8 @@
 package com.barbearia.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -9,10 +11,13 @@ import java.util.List;
 
 @Entity
 @Table(name = "barbeiros")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "barbeiros")
 public class Barbeiro {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "barbeiros_seq")
+    @SequenceGenerator(name = "barbeiros_seq", sequenceName = "barbeiros_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Nome é obrigatório")
@@ -0,0 +1,101 @@
+package com.barbearia.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Persistable: a chave é atribuída pela aplicação e gravar precisa ser um INSERT, que falha se outra instância já reservou
+@Entity
+@Table(name = "chaves_idempotencia")
+public class ChaveIdempotencia implements Persistable<String> {
+    
+    public static final int TAMANHO_MAXIMO_CORPO = 8000;
+    
+    @Id
+    @Column(name = "chave", length = 200)
+    private String chave;
+    
+    @Column(name = "impressao", nullable = false, length = 64)
+    private String impressao;
+    
+    @Column(name = "status")
+    private Integer status;
+    
+    @Column(name = "tipo_conteudo", length = 100)
+    private String tipoConteudo;
+    
+    @Column(name = "corpo", length = TAMANHO_MAXIMO_CORPO)
+    private String corpo;
+    
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+    
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+    
+    @Column(name = "reservada_ate")
+    private LocalDateTime reservadaAte;
+    
+    @Transient
+    private boolean nova;
+    
+    public ChaveIdempotencia() {}
+    
+    public ChaveIdempotencia(String chave, String impressao, LocalDateTime expiraEm, LocalDateTime reservadaAte) {
+        this.chave = chave;
+        this.impressao = impressao;
+        this.criadoEm = LocalDateTime.now();
+        this.expiraEm = expiraEm;
+        this.reservadaAte = reservadaAte;
+        this.nova = true;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void gravada() {
+        this.nova = false;
+    }
+    
+    @Override
+    public String getId() {
+        return chave;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return nova;
+    }
+    
+    public String getChave() {
+        return chave;
+    }
+    
+    public String getImpressao() {
+        return impressao;
+    }
+    
+    public Integer getStatus() {
+        return status;
+    }
+    
+    public String getTipoConteudo() {
+        return tipoConteudo;
+    }
+    
+    public String getCorpo() {
+        return corpo;
+    }
+    
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+    
+    public LocalDateTime getExpiraEm() {
+        return expiraEm;
+    }
+    
+    public LocalDateTime getReservadaAte() {
+        return reservadaAte;
+    }
+}
@@ -0,0 +1,94 @@
+package com.barbearia.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Entity
+@Table(name = "eventos_agendamento")
+public class EventoAgendamento {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eventos_agendamento_seq")
+    @SequenceGenerator(name = "eventos_agendamento_seq", sequenceName = "eventos_agendamento_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "agendamento_id", nullable = false)
+    private Long agendamentoId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 40)
+    private TipoMensagem tipo;
+    
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+    
+    @Column(name = "proxima_tentativa", nullable = false)
+    private LocalDateTime proximaTentativa;
+    
+    @Column(name = "tentativas", nullable = false)
+    private int tentativas;
+    
+    @Column(name = "processado_em")
+    private LocalDateTime processadoEm;
+    
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+    
+    public EventoAgendamento() {}
+    
+    public EventoAgendamento(Long agendamentoId, TipoMensagem tipo) {
+        this.agendamentoId = agendamentoId;
+        this.tipo = tipo;
+        this.dataCriacao = LocalDateTime.now();
+        this.proximaTentativa = this.dataCriacao;
+    }
+    
+    public void marcarProcessado() {
+        this.processadoEm = LocalDateTime.now();
+    }
+    
+    // Reagenda com espera exponencial; depois do limite o evento é encerrado com o erro registrado
+    public void registrarFalha(String erro, int maximoTentativas, long esperaBaseMs) {
+        this.tentativas++;
+        this.ultimoErro = erro != null && erro.length() > 500 ? erro.substring(0, 500) : erro;
+        if (tentativas >= maximoTentativas) {
+            this.processadoEm = LocalDateTime.now();
+        } else {
+            this.proximaTentativa = LocalDateTime.now().plus(esperaBaseMs << Math.min(tentativas, 16), ChronoUnit.MILLIS);
+        }
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public Long getAgendamentoId() {
+        return agendamentoId;
+    }
+    
+    public TipoMensagem getTipo() {
+        return tipo;
+    }
+    
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+    
+    public LocalDateTime getProximaTentativa() {
+        return proximaTentativa;
+    }
+    
+    public int getTentativas() {
+        return tentativas;
+    }
+    
+    public LocalDateTime getProcessadoEm() {
+        return processadoEm;
+    }
+    
+    public String getUltimoErro() {
+        return ultimoErro;
+    }
+}
@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 public class Mensagem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mensagens_seq")
+    @SequenceGenerator(name = "mensagens_seq", sequenceName = "mensagens_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Conteúdo da mensagem é obrigatório")
@@ -34,6 +35,10 @@ public class Mensagem {
     @Column(name = "tipo")
     private TipoMensagem tipo;
     
+    // Evento do outbox que gerou a mensagem; único, para que a reentrega não duplique
+    @Column(name = "evento_id", unique = true)
+    private Long eventoId;
+    
     public Mensagem() {
         this.dataEnvio = LocalDateTime.now();
     }
@@ -126,4 +131,12 @@ public class Mensagem {
     public void setTipo(TipoMensagem tipo) {
         this.tipo = tipo;
     }
+    
+    public Long getEventoId() {
+        return eventoId;
+    }
+    
+    public void setEventoId(Long eventoId) {
+        this.eventoId = eventoId;
+    }
 } 
\ No newline at end of file
@@ -1,15 +1,20 @@
 package com.barbearia.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 
 @Entity
 @Table(name = "tipos_servico")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tipos-servico")
 public class TipoServico {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tipos_servico_seq")
+    @SequenceGenerator(name = "tipos_servico_seq", sequenceName = "tipos_servico_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Nome do serviço é obrigatório")
@@ -0,0 +1,41 @@
+package com.barbearia.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Versão de um recurso servido com ETag; a agenda de cada barbeiro tem a sua linha
+@Entity
+@Table(name = "versoes_recursos")
+public class VersaoRecurso {
+    
+    @Id
+    @Column(name = "chave", length = 40)
+    private String chave;
+    
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+    
+    @Column(name = "alterado_em", nullable = false)
+    private LocalDateTime alteradoEm;
+    
+    public VersaoRecurso() {}
+    
+    public VersaoRecurso(String chave, Long versao, LocalDateTime alteradoEm) {
+        this.chave = chave;
+        this.versao = versao;
+        this.alteradoEm = alteradoEm;
+    }
+    
+    public String getChave() {
+        return chave;
+    }
+    
+    public Long getVersao() {
+        return versao;
+    }
+    
+    public LocalDateTime getAlteradoEm() {
+        return alteradoEm;
+    }
+}
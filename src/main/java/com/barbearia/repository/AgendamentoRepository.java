@@ -1,19 +1,34 @@
 package com.barbearia.repository;
 
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.ServicoAgendado;
 import com.barbearia.model.Agendamento;
 import com.barbearia.model.Barbeiro;
 import com.barbearia.model.Cliente;
 import com.barbearia.model.StatusAgendamento;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Repository
-public interface AgendamentoRepository extends JpaRepository<Agendamento, Long> {
+public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>, AgendamentoRepositoryCustom {
+    
+    String SELECT_RESUMO = "SELECT new com.barbearia.dto.AgendamentoResumo(a.id, c.id, c.nomeCompleto, c.email, " +
+                           "b.id, b.nome, a.dataHorario, a.dataFim, a.valorTotal, a.status, a.dataCriacao, " +
+                           "a.dataResposta, a.observacoes) FROM Agendamento a JOIN a.cliente c JOIN a.barbeiro b ";
+    
+    int LOTE_SERVICOS = 1000;
     
     List<Agendamento> findByCliente(Cliente cliente);
     
@@ -31,6 +46,94 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
                                                           @Param("inicio") LocalDateTime inicio,
                                                           @Param("fim") LocalDateTime fim);
     
+    // Tudo o que o texto das notificações usa, numa única consulta por lote
+    @Query("SELECT DISTINCT a FROM Agendamento a JOIN FETCH a.cliente JOIN FETCH a.barbeiro " +
+           "LEFT JOIN FETCH a.servicos WHERE a.id IN :ids")
+    List<Agendamento> findComDetalhesByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT a FROM Agendamento a WHERE a.cliente.email = :email")
     List<Agendamento> findByClienteEmail(@Param("email") String email);
-} 
\ No newline at end of file
+    
+    // inicioMinimo limita a faixa lida em idx_agendamentos_barbeiro_horario (data_horario sozinho não tem limite inferior)
+    @Query("SELECT COUNT(a) > 0 FROM Agendamento a WHERE a.barbeiro.id = :barbeiroId AND a.status IN :status " +
+           "AND a.dataHorario > :inicioMinimo AND a.dataHorario < :fim AND a.dataFim > :inicio " +
+           "AND (:ignorarId IS NULL OR a.id <> :ignorarId)")
+    boolean existsSobreposicao(@Param("barbeiroId") Long barbeiroId,
+                               @Param("status") Collection<StatusAgendamento> status,
+                               @Param("inicioMinimo") LocalDateTime inicioMinimo,
+                               @Param("inicio") LocalDateTime inicio,
+                               @Param("fim") LocalDateTime fim,
+                               @Param("ignorarId") Long ignorarId);
+    
+    @Query("SELECT a.id, a.dataHorario, SUM(COALESCE(s.duracaoMinutos, 30)), a.status " +
+           "FROM Agendamento a LEFT JOIN a.servicos s " +
+           "WHERE a.barbeiro.id = :barbeiroId AND a.status IN :status AND a.dataHorario >= :desde " +
+           "GROUP BY a.id, a.dataHorario, a.status")
+    List<Object[]> findIntervalosByBarbeiro(@Param("barbeiroId") Long barbeiroId,
+                                            @Param("status") Collection<StatusAgendamento> status,
+                                            @Param("desde") LocalDateTime desde);
+    
+    // Lembretes ainda não enviados, em ordem de (dataHorario, id) para a carga avançar pela janela
+    @Query("SELECT a.id, a.dataHorario FROM Agendamento a WHERE a.status = :status " +
+           "AND (a.dataHorario > :aposDataHorario OR (a.dataHorario = :aposDataHorario AND a.id > :aposId)) " +
+           "AND a.dataHorario <= :ate " +
+           "AND (a.lembreteEnviadoPara IS NULL OR a.lembreteEnviadoPara <> a.dataHorario) " +
+           "ORDER BY a.dataHorario, a.id")
+    List<Object[]> findLembretesPendentes(@Param("status") StatusAgendamento status,
+                                          @Param("aposDataHorario") LocalDateTime aposDataHorario,
+                                          @Param("aposId") Long aposId,
+                                          @Param("ate") LocalDateTime ate,
+                                          Pageable pageable);
+    
+    // Trava as linhas do lote: entre instâncias, só quem as reservar envia o lembrete
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Agendamento a WHERE a.id IN :ids AND a.status = :status")
+    List<Agendamento> reservarParaLembrete(@Param("ids") Collection<Long> ids,
+                                           @Param("status") StatusAgendamento status);
+    
+    // Projeções de leitura: uma consulta para os agendamentos e uma por lote de 1000 para os serviços
+    
+    @Query(SELECT_RESUMO + "ORDER BY a.dataHorario")
+    List<AgendamentoResumo> findResumos();
+    
+    @Query(SELECT_RESUMO + "WHERE a.id = :id")
+    List<AgendamentoResumo> findResumoById(@Param("id") Long id);
+    
+    @Query(SELECT_RESUMO + "WHERE a.status = :status ORDER BY a.dataHorario")
+    List<AgendamentoResumo> findResumosByStatus(@Param("status") StatusAgendamento status);
+    
+    @Query(SELECT_RESUMO + "WHERE c.email = :email ORDER BY a.dataHorario")
+    List<AgendamentoResumo> findResumosByClienteEmail(@Param("email") String email);
+    
+    @Query(SELECT_RESUMO + "WHERE b.id = :barbeiroId AND a.status = :status ORDER BY a.dataHorario")
+    List<AgendamentoResumo> findResumosByBarbeiroAndStatus(@Param("barbeiroId") Long barbeiroId,
+                                                           @Param("status") StatusAgendamento status);
+    
+    @Query(SELECT_RESUMO + "WHERE b.id = :barbeiroId AND a.dataHorario BETWEEN :inicio AND :fim " +
+           "ORDER BY a.dataHorario")
+    List<AgendamentoResumo> findResumosByBarbeiroAndDataHorarioBetween(@Param("barbeiroId") Long barbeiroId,
+                                                                       @Param("inicio") LocalDateTime inicio,
+                                                                       @Param("fim") LocalDateTime fim);
+    
+    @Query("SELECT new com.barbearia.dto.ServicoAgendado(a.id, s.id, s.nome, s.preco, s.duracaoMinutos) " +
+           "FROM Agendamento a JOIN a.servicos s WHERE a.id IN :ids")
+    List<ServicoAgendado> findServicosByAgendamentoIds(@Param("ids") Collection<Long> ids);
+    
+    default List<AgendamentoResumo> comServicos(List<AgendamentoResumo> resumos) {
+        List<ServicoAgendado> servicos = new ArrayList<>();
+        for (int i = 0; i < resumos.size(); i += LOTE_SERVICOS) {
+            List<Long> ids = resumos.subList(i, Math.min(i + LOTE_SERVICOS, resumos.size())).stream()
+                .map(AgendamentoResumo::id)
+                .toList();
+            servicos.addAll(findServicosByAgendamentoIds(ids));
+        }
+        
+        Map<Long, List<AgendamentoResumo.ServicoResumo>> porAgendamento = servicos.stream()
+            .collect(Collectors.groupingBy(ServicoAgendado::agendamentoId,
+                Collectors.mapping(ServicoAgendado::resumo, Collectors.toList())));
+        
+        return resumos.stream()
+            .map(r -> r.comServicos(porAgendamento.getOrDefault(r.id(), List.of())))
+            .toList();
+    }
+}
\ No newline at end of file
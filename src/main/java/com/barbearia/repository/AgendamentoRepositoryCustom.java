@@ -0,0 +1,18 @@
+package com.barbearia.repository;
+
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.FiltroAgendamento;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface AgendamentoRepositoryCustom {
+
+    // Paginação por chave (data_horario, id): retorna até "limite" registros posteriores ao cursor
+    List<AgendamentoResumo> buscarResumos(FiltroAgendamento filtro, LocalDateTime aposDataHorario,
+                                          Long aposId, int limite);
+
+    // Cursor do banco lido em lotes de "tamanhoLote"; precisa de transação aberta enquanto for consumido
+    Stream<AgendamentoResumo> streamResumos(FiltroAgendamento filtro, int tamanhoLote);
+}
@@ -0,0 +1,83 @@
+package com.barbearia.repository;
+
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.FiltroAgendamento;
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.AvailableHints;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class AgendamentoRepositoryImpl implements AgendamentoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AgendamentoResumo> buscarResumos(FiltroAgendamento filtro, LocalDateTime aposDataHorario,
+                                                 Long aposId, int limite) {
+        return entityManager.createQuery(consultaResumos(filtro, aposDataHorario, aposId))
+            .setMaxResults(limite)
+            .getResultList();
+    }
+
+    @Override
+    public Stream<AgendamentoResumo> streamResumos(FiltroAgendamento filtro, int tamanhoLote) {
+        return entityManager.createQuery(consultaResumos(filtro, null, null))
+            .setHint(AvailableHints.HINT_FETCH_SIZE, tamanhoLote)
+            .setHint(AvailableHints.HINT_READ_ONLY, true)
+            .getResultStream();
+    }
+
+    private CriteriaQuery<AgendamentoResumo> consultaResumos(FiltroAgendamento filtro, LocalDateTime aposDataHorario,
+                                                             Long aposId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AgendamentoResumo> query = cb.createQuery(AgendamentoResumo.class);
+        Root<Agendamento> a = query.from(Agendamento.class);
+        Join<Agendamento, Cliente> c = a.join("cliente");
+        Join<Agendamento, Barbeiro> b = a.join("barbeiro");
+
+        query.select(cb.construct(AgendamentoResumo.class,
+            a.get("id"), c.get("id"), c.get("nomeCompleto"), c.get("email"),
+            b.get("id"), b.get("nome"), a.get("dataHorario"), a.get("dataFim"), a.get("valorTotal"),
+            a.get("status"), a.get("dataCriacao"), a.get("dataResposta"), a.get("observacoes")));
+
+        List<Predicate> predicados = new ArrayList<>();
+        if (filtro.barbeiroId() != null) {
+            predicados.add(cb.equal(b.get("id"), filtro.barbeiroId()));
+        }
+        if (filtro.status() != null) {
+            predicados.add(cb.equal(a.get("status"), filtro.status()));
+        }
+        if (filtro.de() != null) {
+            predicados.add(cb.greaterThanOrEqualTo(a.get("dataHorario"), filtro.de()));
+        }
+        if (filtro.ate() != null) {
+            predicados.add(cb.lessThan(a.get("dataHorario"), filtro.ate()));
+        }
+        if (filtro.emailCliente() != null) {
+            predicados.add(cb.equal(c.get("email"), filtro.emailCliente()));
+        }
+        if (aposDataHorario != null && aposId != null) {
+            predicados.add(cb.or(
+                cb.greaterThan(a.get("dataHorario"), aposDataHorario),
+                cb.and(cb.equal(a.get("dataHorario"), aposDataHorario), cb.greaterThan(a.get("id"), aposId))
+            ));
+        }
+
+        query.where(predicados.toArray(Predicate[]::new));
+        query.orderBy(cb.asc(a.get("dataHorario")), cb.asc(a.get("id")));
+        return query;
+    }
+}
@@ -1,8 +1,11 @@
 package com.barbearia.repository;
 
 import com.barbearia.model.Barbeiro;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,12 +15,22 @@ import java.util.Optional;
 @Repository
 public interface BarbeiroRepository extends JpaRepository<Barbeiro, Long> {
     
+    String REGIAO_CONSULTAS = "consultas-catalogo";
+    
     Optional<Barbeiro> findByLogin(String login);
     
     @Query("SELECT b FROM Barbeiro b WHERE b.ativo = true")
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)
+    })
     List<Barbeiro> findAllAtivos();
     
     @Query("SELECT b FROM Barbeiro b WHERE b.login = :login AND b.ativo = true")
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)
+    })
     Optional<Barbeiro> findByLoginAndAtivo(@Param("login") String login);
     
     boolean existsByLogin(String login);
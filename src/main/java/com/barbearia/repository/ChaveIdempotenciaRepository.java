@@ -0,0 +1,46 @@
+package com.barbearia.repository;
+
+import com.barbearia.model.ChaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChaveIdempotenciaRepository extends JpaRepository<ChaveIdempotencia, String> {
+    
+    // Projeção, não entidade: quem espera outra instância relê a linha sem passar pelo contexto de persistência
+    @Query("SELECT c.impressao, c.status, c.tipoConteudo, c.corpo, c.expiraEm, c.reservadaAte FROM ChaveIdempotencia c " +
+           "WHERE c.chave = :chave")
+    List<Object[]> findRegistro(@Param("chave") String chave);
+    
+    @Modifying
+    @Query("UPDATE ChaveIdempotencia c SET c.status = :status, c.tipoConteudo = :tipoConteudo, c.corpo = :corpo " +
+           "WHERE c.chave = :chave")
+    int concluir(@Param("chave") String chave, @Param("status") int status,
+                 @Param("tipoConteudo") String tipoConteudo, @Param("corpo") String corpo);
+    
+    // Reserva de uma instância que não concluiu nem liberou dentro do prazo; só uma das que disputam consegue
+    @Modifying
+    @Query("UPDATE ChaveIdempotencia c SET c.reservadaAte = :reservadaAte WHERE c.chave = :chave " +
+           "AND c.status IS NULL AND (c.reservadaAte IS NULL OR c.reservadaAte < :agora)")
+    int assumir(@Param("chave") String chave, @Param("agora") LocalDateTime agora,
+                @Param("reservadaAte") LocalDateTime reservadaAte);
+    
+    // Só libera a chave se a requisição não chegou a concluir; resposta gravada continua valendo
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.chave = :chave AND c.status IS NULL")
+    int liberar(@Param("chave") String chave);
+    
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.chave = :chave AND c.expiraEm < :agora")
+    int deleteExpirada(@Param("chave") String chave, @Param("agora") LocalDateTime agora);
+    
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.expiraEm < :agora")
+    int deleteExpiradas(@Param("agora") LocalDateTime agora);
+}
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,4 +22,6 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     Optional<Cliente> findByEmailAndNome(@Param("email") String email, @Param("nome") String nome);
     
     boolean existsByEmail(String email);
+    
+    List<Cliente> findByEmailIn(Collection<String> emails);
 } 
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.barbearia.repository;
+
+import com.barbearia.model.EventoAgendamento;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EventoAgendamentoRepository extends JpaRepository<EventoAgendamento, Long> {
+    
+    // SKIP LOCKED (-2): despachantes concorrentes, nesta ou em outra instância, nunca pegam o mesmo evento
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoAgendamento e WHERE e.processadoEm IS NULL AND e.proximaTentativa <= :agora " +
+           "ORDER BY e.proximaTentativa, e.id")
+    List<EventoAgendamento> reservarPendentes(@Param("agora") LocalDateTime agora, Pageable pagina);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoAgendamento e WHERE e.id = :id AND e.processadoEm IS NULL")
+    Optional<EventoAgendamento> reservar(@Param("id") Long id);
+    
+    @Modifying
+    @Query("DELETE FROM EventoAgendamento e WHERE e.processadoEm < :limite")
+    int deleteProcessadosAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -1,14 +1,18 @@
 package com.barbearia.repository;
 
+import com.barbearia.dto.MensagemResumo;
 import com.barbearia.model.Mensagem;
 import com.barbearia.model.Barbeiro;
 import com.barbearia.model.Agendamento;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -27,6 +31,45 @@ public interface MensagemRepository extends JpaRepository<Mensagem, Long> {
                                                         @Param("inicio") LocalDateTime inicio,
                                                         @Param("fim") LocalDateTime fim);
     
+    @Query("SELECT m.eventoId FROM Mensagem m WHERE m.eventoId IN :eventoIds")
+    List<Long> findEventoIdsGerados(@Param("eventoIds") Collection<Long> eventoIds);
+    
     @Query("SELECT COUNT(m) FROM Mensagem m WHERE m.destinatario = :destinatario AND m.lida = false")
     Long countMensagensNaoLidasByDestinatario(@Param("destinatario") Barbeiro destinatario);
-} 
\ No newline at end of file
+    
+    @Query("SELECT COUNT(m) FROM Mensagem m WHERE m.destinatario.id = :barbeiroId AND m.lida = false")
+    long countNaoLidasByDestinatarioId(@Param("barbeiroId") Long barbeiroId);
+    
+    @Query("SELECT m.destinatario.id, COUNT(m) FROM Mensagem m " +
+           "WHERE m.destinatario.id IN :barbeiroIds AND m.lida = false GROUP BY m.destinatario.id")
+    List<Object[]> countNaoLidasAgrupadas(@Param("barbeiroIds") Collection<Long> barbeiroIds);
+    
+    // Caixa de entrada por chave (dataEnvio, id), das mais recentes para as mais antigas
+    @Query("SELECT new com.barbearia.dto.MensagemResumo(m.id, m.conteudo, m.dataEnvio, m.lida, m.tipo, m.agendamento.id) " +
+           "FROM Mensagem m WHERE m.destinatario.id = :barbeiroId " +
+           "AND (:apenasNaoLidas = false OR (m.lida = false AND m.id NOT IN :lidasPendentes)) " +
+           "AND (:aposId IS NULL OR m.dataEnvio < :aposDataEnvio OR (m.dataEnvio = :aposDataEnvio AND m.id < :aposId)) " +
+           "ORDER BY m.dataEnvio DESC, m.id DESC")
+    List<MensagemResumo> findCaixaEntrada(@Param("barbeiroId") Long barbeiroId,
+                                          @Param("apenasNaoLidas") boolean apenasNaoLidas,
+                                          @Param("lidasPendentes") Collection<Long> lidasPendentes,
+                                          @Param("aposDataEnvio") LocalDateTime aposDataEnvio,
+                                          @Param("aposId") Long aposId,
+                                          Pageable pageable);
+    
+    @Query("SELECT m.destinatario.id, m.lida FROM Mensagem m WHERE m.id = :id")
+    List<Object[]> findLeitura(@Param("id") Long id);
+    
+    @Query("SELECT m.id FROM Mensagem m WHERE m.destinatario.id = :barbeiroId AND m.id IN :ids AND m.lida = false")
+    List<Long> findNaoLidasEntre(@Param("barbeiroId") Long barbeiroId, @Param("ids") Collection<Long> ids);
+    
+    // Atualizações em conjunto: só as não lidas entram, então o total devolvido é o que saiu do contador
+    @Modifying
+    @Query("UPDATE Mensagem m SET m.lida = true WHERE m.destinatario.id = :barbeiroId AND m.lida = false")
+    int marcarTodasComoLidas(@Param("barbeiroId") Long barbeiroId);
+    
+    // Gravação das leituras acumuladas em memória, de vários barbeiros de uma vez
+    @Modifying
+    @Query("UPDATE Mensagem m SET m.lida = true WHERE m.id IN :ids AND m.lida = false")
+    int marcarComoLidas(@Param("ids") Collection<Long> ids);
+}
@@ -1,8 +1,11 @@
 package com.barbearia.repository;
 
 import com.barbearia.model.TipoServico;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,7 +15,13 @@ import java.util.Optional;
 @Repository
 public interface TipoServicoRepository extends JpaRepository<TipoServico, Long> {
     
+    String REGIAO_CONSULTAS = "consultas-catalogo";
+    
     @Query("SELECT t FROM TipoServico t WHERE t.ativo = true")
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)
+    })
     List<TipoServico> findAllAtivos();
     
     Optional<TipoServico> findByNome(String nome);
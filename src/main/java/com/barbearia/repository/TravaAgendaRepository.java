@@ -0,0 +1,51 @@
+package com.barbearia.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Trava de agenda compartilhada entre instâncias. No PostgreSQL usa advisory locks
+ * de transação por (barbeiro, dia); no H2 não faz nada e a aplicação conta apenas
+ * com as travas em memória, suficientes para uma única instância.
+ */
+@Repository
+public class TravaAgendaRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${barbearia.agenda.espera-trava-ms:5000}")
+    private long esperaTravaMs;
+
+    private final boolean postgres;
+
+    @Autowired
+    public TravaAgendaRepository(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            this.postgres = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        }
+    }
+
+    public void travar(Long barbeiroId, LocalDate dia) {
+        if (!postgres) {
+            return;
+        }
+
+        entityManager.createNativeQuery("SELECT set_config('lock_timeout', :timeout, true)")
+            .setParameter("timeout", esperaTravaMs + "ms")
+            .getSingleResult();
+
+        entityManager.createNativeQuery("SELECT 1 FROM pg_advisory_xact_lock(CAST(:barbeiro AS int), CAST(:dia AS int))")
+            .setParameter("barbeiro", barbeiroId.intValue())
+            .setParameter("dia", (int) dia.toEpochDay())
+            .getSingleResult();
+    }
+}
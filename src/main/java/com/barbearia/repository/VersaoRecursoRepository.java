@@ -0,0 +1,28 @@
+package com.barbearia.repository;
+
+import com.barbearia.model.VersaoRecurso;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VersaoRecursoRepository extends JpaRepository<VersaoRecurso, String> {
+    
+    String PREFIXO_AGENDA = "AGENDA:";
+    
+    @Modifying
+    @Query("UPDATE VersaoRecurso v SET v.versao = v.versao + 1, v.alteradoEm = :agora WHERE v.chave = :chave")
+    int incrementar(@Param("chave") String chave, @Param("agora") LocalDateTime agora);
+    
+    // Projeção, não entidade: lida a cada requisição com ETag. Com todasAgendas vêm também as linhas de
+    // todas as agendas, que somadas dão a versão do conjunto dos agendamentos
+    @Query("SELECT v.chave, v.versao, v.alteradoEm FROM VersaoRecurso v " +
+           "WHERE v.chave IN :chaves OR (:todasAgendas = true AND v.chave LIKE '" + PREFIXO_AGENDA + "%')")
+    List<Object[]> findVersoes(@Param("chaves") Collection<String> chaves, @Param("todasAgendas") boolean todasAgendas);
+}
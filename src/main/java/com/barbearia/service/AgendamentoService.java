@@ -1,5 +1,9 @@
 package com.barbearia.service;
 
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.NovoAgendamento;
+import com.barbearia.dto.FiltroAgendamento;
+import com.barbearia.dto.PaginaAgendamentos;
 import com.barbearia.model.*;
 import com.barbearia.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +18,11 @@ import java.util.Optional;
 @Transactional
 public class AgendamentoService {
     
+    private static final int LIMITE_MAXIMO_PAGINA = 200;
+    
+    // Nenhum atendimento dura mais que isso; limita a busca de sobreposições no banco
+    private static final int DURACAO_MAXIMA_HORAS = 24;
+    
     @Autowired
     private AgendamentoRepository agendamentoRepository;
     
@@ -24,10 +33,19 @@ public class AgendamentoService {
     private BarbeiroService barbeiroService;
     
     @Autowired
-    private TipoServicoRepository tipoServicoRepository;
+    private CatalogoServicosService catalogoServicosService;
+    
+    @Autowired
+    private NotificacaoService notificacaoService;
+    
+    @Autowired
+    private EventosBarbeiroService eventosBarbeiroService;
     
     @Autowired
-    private MensagemService mensagemService;
+    private IndiceAgendaService indiceAgendaService;
+    
+    @Autowired
+    private LembreteService lembreteService;
     
     public Agendamento criarAgendamento(String nomeCliente, String emailCliente, 
                                        Long barbeiroId, List<Long> servicoIds, 
@@ -55,47 +73,48 @@ public class AgendamentoService {
             throw new IllegalArgumentException("Barbeiro não encontrado");
         }
         
-        // Buscar serviços
-        List<TipoServico> servicos = tipoServicoRepository.findAllById(servicoIds);
-        if (servicos.isEmpty()) {
-            throw new IllegalArgumentException("Nenhum serviço válido selecionado");
-        }
+        // Serviços, duração e valor saem do catálogo em memória
+        CatalogoServicosService.Orcamento orcamento = catalogoServicosService.orcar(servicoIds);
+        int duracaoTotal = orcamento.duracaoMinutos();
         
-        // Calcular duração total
-        int duracaoTotal = servicos.stream()
-            .mapToInt(s -> s.getDuracaoMinutos() != null ? s.getDuracaoMinutos() : 30)
-            .sum();
-        
-        // Verificar disponibilidade do barbeiro
-        if (!barbeiro.get().isDisponivel(dataHorario, duracaoTotal)) {
-            throw new IllegalArgumentException("Barbeiro não está disponível neste horário");
+        // Verificar disponibilidade do barbeiro; a trava vale até o commit para que a verificação e a
+        // gravação sejam atômicas em relação a outras marcações do mesmo barbeiro no mesmo dia
+        if (!travarSeLivre(barbeiroId, dataHorario, duracaoTotal, null)) {
+            throw new HorarioIndisponivelException("Barbeiro não está disponível neste horário");
         }
         
-        // Calcular valor total
-        double valorTotal = servicos.stream()
-            .mapToDouble(TipoServico::getPreco)
-            .sum();
-        
         // Criar agendamento
-        Agendamento agendamento = new Agendamento(cliente, barbeiro.get(), servicos, dataHorario, valorTotal);
+        Agendamento agendamento = new Agendamento(cliente, barbeiro.get(), orcamento.servicos(), dataHorario,
+            orcamento.valorTotal());
         agendamento.setObservacoes(observacoes);
         
-        if (agendamento.marcarServico()) {
-            Agendamento agendamentoSalvo = agendamentoRepository.save(agendamento);
-            
-            // Enviar notificação para o barbeiro
-            mensagemService.criarMensagemAgendamento(agendamentoSalvo, TipoMensagem.AGENDAMENTO_CRIADO);
-            
-            return agendamentoSalvo;
-        } else {
-            throw new RuntimeException("Erro ao criar agendamento");
-        }
+        Agendamento agendamentoSalvo = agendamentoRepository.save(agendamento);
+        indiceAgendaService.registrar(agendamentoSalvo);
+        
+        // Notificação para o barbeiro sai pelo outbox, fora desta transação
+        notificacaoService.registrar(agendamentoSalvo, TipoMensagem.AGENDAMENTO_CRIADO);
+        eventosBarbeiroService.agendamentoAlterado(agendamentoSalvo, EventosBarbeiroService.TipoEvento.AGENDAMENTO_CRIADO);
+        
+        return agendamentoSalvo;
     }
     
+    // Resposta da API montada ainda dentro da transação, sem serializar a entidade
+    public AgendamentoResumo agendar(NovoAgendamento pedido) {
+        return AgendamentoResumo.de(criarAgendamento(pedido.nomeCliente(), pedido.emailCliente(), pedido.barbeiroId(),
+            pedido.servicoIds(), pedido.dataHorario(), pedido.observacoes()));
+    }
+    
+    @Transactional(readOnly = true)
     public Optional<Agendamento> buscarPorId(Long id) {
         return agendamentoRepository.findById(id);
     }
     
+    @Transactional(readOnly = true)
+    public Optional<AgendamentoResumo> buscarResumoPorId(Long id) {
+        return agendamentoRepository.comServicos(agendamentoRepository.findResumoById(id)).stream().findFirst();
+    }
+    
+    @Transactional(readOnly = true)
     public List<Agendamento> buscarPorCliente(Long clienteId) {
         Optional<Cliente> cliente = clienteService.buscarPorId(clienteId);
         if (cliente.isPresent()) {
@@ -104,10 +123,12 @@ public class AgendamentoService {
         return List.of();
     }
     
-    public List<Agendamento> buscarPorEmailCliente(String email) {
-        return agendamentoRepository.findByClienteEmail(email);
+    @Transactional(readOnly = true)
+    public List<AgendamentoResumo> buscarPorEmailCliente(String email) {
+        return agendamentoRepository.comServicos(agendamentoRepository.findResumosByClienteEmail(email));
     }
     
+    @Transactional(readOnly = true)
     public List<Agendamento> buscarPorBarbeiro(Long barbeiroId) {
         Optional<Barbeiro> barbeiro = barbeiroService.buscarPorId(barbeiroId);
         if (barbeiro.isPresent()) {
@@ -135,9 +156,12 @@ public class AgendamentoService {
             ag.setObservacoes(ag.getObservacoes() + " | Cancelado: " + motivo);
             
             agendamentoRepository.save(ag);
+            indiceAgendaService.registrar(ag);
+            lembreteService.registrar(ag);
             
             // Notificar barbeiro sobre cancelamento
-            mensagemService.criarMensagemAgendamento(ag, TipoMensagem.AGENDAMENTO_CANCELADO);
+            notificacaoService.registrar(ag, TipoMensagem.AGENDAMENTO_CANCELADO);
+            eventosBarbeiroService.agendamentoAlterado(ag, EventosBarbeiroService.TipoEvento.AGENDAMENTO_CANCELADO);
             
             return true;
         }
@@ -161,23 +185,46 @@ public class AgendamentoService {
         return false;
     }
     
+    @Transactional(readOnly = true)
     public double calcularValorTotal(List<Long> servicoIds) {
-        List<TipoServico> servicos = tipoServicoRepository.findAllById(servicoIds);
-        return servicos.stream()
-            .mapToDouble(TipoServico::getPreco)
-            .sum();
+        return catalogoServicosService.orcar(servicoIds).valorTotal();
     }
     
-    public List<Agendamento> buscarAgendamentosPendentes() {
-        return agendamentoRepository.findByStatus(StatusAgendamento.PENDENTE);
+    @Transactional(readOnly = true)
+    public List<AgendamentoResumo> buscarAgendamentosPendentes() {
+        return agendamentoRepository.comServicos(agendamentoRepository.findResumosByStatus(StatusAgendamento.PENDENTE));
     }
     
-    public List<Agendamento> buscarAgendamentosConfirmados() {
-        return agendamentoRepository.findByStatus(StatusAgendamento.CONFIRMADO);
+    @Transactional(readOnly = true)
+    public List<AgendamentoResumo> buscarAgendamentosConfirmados() {
+        return agendamentoRepository.comServicos(agendamentoRepository.findResumosByStatus(StatusAgendamento.CONFIRMADO));
     }
     
-    public List<Agendamento> listarTodos() {
-        return agendamentoRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<AgendamentoResumo> listarTodos() {
+        return agendamentoRepository.comServicos(agendamentoRepository.findResumos());
+    }
+    
+    @Transactional(readOnly = true)
+    public PaginaAgendamentos pesquisar(FiltroAgendamento filtro, String cursor, int limite) {
+        if (limite <= 0 || limite > LIMITE_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + LIMITE_MAXIMO_PAGINA);
+        }
+        
+        CursorPaginacao.Posicao posicao = CursorPaginacao.decodificar(cursor);
+        LocalDateTime aposDataHorario = posicao != null ? posicao.data() : null;
+        Long aposId = posicao != null ? posicao.id() : null;
+        
+        // Busca um registro a mais só para saber se existe próxima página
+        List<AgendamentoResumo> resumos = agendamentoRepository.buscarResumos(filtro, aposDataHorario, aposId, limite + 1);
+        String proximoCursor = null;
+        if (resumos.size() > limite) {
+            resumos = resumos.subList(0, limite);
+            AgendamentoResumo ultimo = resumos.get(limite - 1);
+            proximoCursor = CursorPaginacao.codificar(ultimo.dataHorario(), ultimo.id());
+        }
+        
+        return new PaginaAgendamentos(agendamentoRepository.comServicos(resumos), proximoCursor);
     }
     
     public Agendamento atualizarAgendamento(Long id, LocalDateTime novaDataHorario, List<Long> novosServicoIds) {
@@ -190,35 +237,51 @@ public class AgendamentoService {
                 throw new IllegalArgumentException("Só é possível alterar agendamentos pendentes");
             }
             
-            if (novaDataHorario != null) {
-                if (novaDataHorario.isBefore(LocalDateTime.now())) {
-                    throw new IllegalArgumentException("Nova data/hora deve ser futura");
-                }
-                
-                // Verificar disponibilidade do barbeiro para nova data/hora
-                int duracaoTotal = agendamento.getDuracaoTotal();
-                if (!agendamento.getBarbeiro().isDisponivel(novaDataHorario, duracaoTotal)) {
-                    throw new IllegalArgumentException("Barbeiro não está disponível na nova data/hora");
-                }
-                
-                agendamento.setDataHorario(novaDataHorario);
+            if (novaDataHorario != null && novaDataHorario.isBefore(LocalDateTime.now())) {
+                throw new IllegalArgumentException("Nova data/hora deve ser futura");
             }
             
+            int duracaoAnterior = agendamento.getDuracaoTotal();
             if (novosServicoIds != null && !novosServicoIds.isEmpty()) {
-                List<TipoServico> novosServicos = tipoServicoRepository.findAllById(novosServicoIds);
-                if (!novosServicos.isEmpty()) {
-                    agendamento.setServicos(novosServicos);
-                    
-                    double novoValorTotal = novosServicos.stream()
-                        .mapToDouble(TipoServico::getPreco)
-                        .sum();
-                    agendamento.setValorTotal(novoValorTotal);
+                CatalogoServicosService.Orcamento orcamento = catalogoServicosService.orcar(novosServicoIds);
+                agendamento.setServicos(orcamento.servicos());
+                agendamento.setValorTotal(orcamento.valorTotal());
+            }
+            
+            // Novo início ou nova duração: confere o intervalo resultante, ignorando o próprio agendamento
+            LocalDateTime inicio = novaDataHorario != null ? novaDataHorario : agendamento.getDataHorario();
+            int duracaoTotal = agendamento.getDuracaoTotal();
+            if (novaDataHorario != null || duracaoTotal != duracaoAnterior) {
+                Long barbeiroId = agendamento.getBarbeiro().getId();
+                if (!travarSeLivre(barbeiroId, inicio, duracaoTotal, agendamento.getId())) {
+                    throw new HorarioIndisponivelException("Barbeiro não está disponível na nova data/hora");
                 }
+                
+                agendamento.setDataHorario(inicio);
             }
             
-            return agendamentoRepository.save(agendamento);
+            Agendamento agendamentoSalvo = agendamentoRepository.save(agendamento);
+            indiceAgendaService.registrar(agendamentoSalvo);
+            lembreteService.registrar(agendamentoSalvo);
+            eventosBarbeiroService.agendamentoAlterado(agendamentoSalvo, EventosBarbeiroService.TipoEvento.AGENDAMENTO_ALTERADO);
+            return agendamentoSalvo;
         } else {
             throw new IllegalArgumentException("Agendamento não encontrado com ID: " + id);
         }
     }
+    
+    // Trava a agenda do barbeiro até o fim da transação e só então confere o horário, no índice e no banco.
+    // Toda gravação de agendamento ativo passa por aqui: marcação, remarcação e importação
+    public boolean travarSeLivre(Long barbeiroId, LocalDateTime inicio, int duracaoMinutos, Long ignorarAgendamentoId) {
+        indiceAgendaService.bloquear(barbeiroId, inicio, inicio.plusMinutes(duracaoMinutos));
+        return indiceAgendaService.isDisponivel(barbeiroId, inicio, duracaoMinutos, ignorarAgendamentoId)
+            && !existeSobreposicaoNoBanco(barbeiroId, inicio, duracaoMinutos, ignorarAgendamentoId);
+    }
+    
+    // O índice em memória só conhece as marcações desta instância; o banco vê as de todas
+    private boolean existeSobreposicaoNoBanco(Long barbeiroId, LocalDateTime inicio, int duracaoMinutos,
+                                              Long ignorarAgendamentoId) {
+        return agendamentoRepository.existsSobreposicao(barbeiroId, IndiceAgendaService.STATUS_ATIVOS,
+            inicio.minusHours(DURACAO_MAXIMA_HORAS), inicio, inicio.plusMinutes(duracaoMinutos), ignorarAgendamentoId);
+    }
 } 
\ No newline at end of file
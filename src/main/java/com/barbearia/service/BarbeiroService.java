@@ -1,19 +1,26 @@
 package com.barbearia.service;
 
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.BarbeiroAtivo;
 import com.barbearia.model.Barbeiro;
 import com.barbearia.model.Agendamento;
 import com.barbearia.model.StatusAgendamento;
 import com.barbearia.repository.BarbeiroRepository;
 import com.barbearia.repository.AgendamentoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Transactional
@@ -25,6 +32,33 @@ public class BarbeiroService {
     @Autowired
     private AgendamentoRepository agendamentoRepository;
     
+    @Autowired
+    private IndiceAgendaService indiceAgendaService;
+    
+    @Autowired
+    private LembreteService lembreteService;
+    
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+    
+    @Autowired
+    private EventosBarbeiroService eventosBarbeiroService;
+    
+    @Autowired
+    private VerificacaoSenhaService verificacaoSenhaService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private CoalescenciaService coalescenciaService;
+    
+    @Value("${barbearia.coalescencia.espera-barbeiros-ms:2000}")
+    private long esperaBarbeirosMs;
+    
+    @Value("${barbearia.coalescencia.espera-agenda-ms:3000}")
+    private long esperaAgendaMs;
+    
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     
     public Barbeiro salvarBarbeiro(Barbeiro barbeiro) {
@@ -40,49 +74,55 @@ public class BarbeiroService {
             throw new IllegalArgumentException("Login já existe");
         }
         
-        return barbeiroRepository.save(barbeiro);
+        versaoRecursosService.alterado(VersaoRecursosService.Recurso.BARBEIROS);
+        Barbeiro salvo = barbeiroRepository.save(barbeiro);
+        // Cria a linha de versão da agenda junto com o barbeiro, antes da primeira marcação
+        versaoRecursosService.agendaAlterada(salvo.getId());
+        return salvo;
     }
     
+    @Transactional(readOnly = true)
     public Optional<Barbeiro> buscarPorId(Long id) {
         return barbeiroRepository.findById(id);
     }
     
+    @Transactional(readOnly = true)
     public Optional<Barbeiro> buscarPorLogin(String login) {
         return barbeiroRepository.findByLoginAndAtivo(login);
     }
     
-    public List<Barbeiro> listarBarbeirosAtivos() {
-        return barbeiroRepository.findAllAtivos();
+    // Coalescida como o catálogo de serviços: a versão na chave evita servir uma leitura anterior à alteração
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<BarbeiroAtivo> listarBarbeirosAtivos() {
+        String versao = versaoRecursosService.versao(VersaoRecursosService.Recurso.BARBEIROS).etag();
+        return coalescenciaService.executar("barbeiros-ativos", versao, esperaBarbeirosMs, () ->
+            leitura().execute(status -> barbeiroRepository.findAllAtivos().stream().map(BarbeiroAtivo::de).toList()));
     }
     
-    public boolean autenticarBarbeiro(String login, String senha) {
-        Optional<Barbeiro> barbeiro = barbeiroRepository.findByLoginAndAtivo(login);
+    // Só a admissão roda na thread do chamador; busca e BCrypt ficam no pool de verificação
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CompletableFuture<Optional<Barbeiro>> autenticarBarbeiro(String login, String senha, String origem) {
+        verificacaoSenhaService.admitir(login, origem);
+        TransactionTemplate leitura = leitura();
         
-        if (barbeiro.isPresent()) {
-            return barbeiro.get().fazerLogin(login, senha);
-        }
-        return false;
+        return verificacaoSenhaService.verificar(login, origem, senha,
+                () -> leitura.execute(status -> barbeiroRepository.findByLoginAndAtivo(login)), Barbeiro::getSenha)
+            .thenApply(verificacao -> verificacao.senhaCorreta() ? verificacao.encontrado() : Optional.empty());
     }
     
-    public List<Agendamento> verAgendaSemanal(Long barbeiroId, LocalDateTime inicioSemana) {
-        Optional<Barbeiro> barbeiro = barbeiroRepository.findById(barbeiroId);
-        
-        if (barbeiro.isPresent()) {
-            LocalDateTime fimSemana = inicioSemana.plus(7, ChronoUnit.DAYS);
-            return agendamentoRepository.findByBarbeiroAndDataHorarioBetween(
-                barbeiro.get(), inicioSemana, fimSemana);
-        }
-        return List.of();
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<AgendamentoResumo> verAgendaSemanal(Long barbeiroId, LocalDateTime inicioSemana) {
+        LocalDateTime fimSemana = inicioSemana.plus(7, ChronoUnit.DAYS);
+        String chave = barbeiroId + ":" + inicioSemana + ":" + versaoRecursosService.versaoAgenda(barbeiroId).etag();
+        return coalescenciaService.executar("agenda-semanal", chave, esperaAgendaMs, () ->
+            List.copyOf(leitura().execute(status -> agendamentoRepository.comServicos(
+                agendamentoRepository.findResumosByBarbeiroAndDataHorarioBetween(barbeiroId, inicioSemana, fimSemana)))));
     }
     
-    public List<Agendamento> verAgendamentosPendentes(Long barbeiroId) {
-        Optional<Barbeiro> barbeiro = barbeiroRepository.findById(barbeiroId);
-        
-        if (barbeiro.isPresent()) {
-            return agendamentoRepository.findByBarbeiroAndStatus(
-                barbeiro.get(), StatusAgendamento.PENDENTE);
-        }
-        return List.of();
+    @Transactional(readOnly = true)
+    public List<AgendamentoResumo> verAgendamentosPendentes(Long barbeiroId) {
+        return agendamentoRepository.comServicos(
+            agendamentoRepository.findResumosByBarbeiroAndStatus(barbeiroId, StatusAgendamento.PENDENTE));
     }
     
     public boolean responderAgendamento(Long barbeiroId, Long agendamentoId, boolean aceitar) {
@@ -106,16 +146,20 @@ public class BarbeiroService {
             ag.setDataResposta(LocalDateTime.now());
             
             agendamentoRepository.save(ag);
+            indiceAgendaService.registrar(ag);
+            lembreteService.registrar(ag);
+            eventosBarbeiroService.agendamentoAlterado(ag, aceitar
+                ? EventosBarbeiroService.TipoEvento.AGENDAMENTO_CONFIRMADO
+                : EventosBarbeiroService.TipoEvento.AGENDAMENTO_RECUSADO);
             return true;
         }
         return false;
     }
     
+    @Transactional(readOnly = true)
     public boolean isBarbeiroDisponivel(Long barbeiroId, LocalDateTime dataHorario, int duracaoMinutos) {
-        Optional<Barbeiro> barbeiro = barbeiroRepository.findById(barbeiroId);
-        
-        if (barbeiro.isPresent()) {
-            return barbeiro.get().isDisponivel(dataHorario, duracaoMinutos);
+        if (barbeiroRepository.existsById(barbeiroId)) {
+            return indiceAgendaService.isDisponivel(barbeiroId, dataHorario, duracaoMinutos);
         }
         return false;
     }
@@ -139,6 +183,7 @@ public class BarbeiroService {
                 barbeiro.setLogin(barbeiroAtualizado.getLogin());
             }
             
+            versaoRecursosService.alterado(VersaoRecursosService.Recurso.BARBEIROS);
             return barbeiroRepository.save(barbeiro);
         } else {
             throw new IllegalArgumentException("Barbeiro não encontrado com ID: " + id);
@@ -151,8 +196,15 @@ public class BarbeiroService {
         if (barbeiro.isPresent()) {
             barbeiro.get().setAtivo(ativo);
             barbeiroRepository.save(barbeiro.get());
+            versaoRecursosService.alterado(VersaoRecursosService.Recurso.BARBEIROS);
         } else {
             throw new IllegalArgumentException("Barbeiro não encontrado com ID: " + id);
         }
     }
-} 
\ No newline at end of file
+    
+    private TransactionTemplate leitura() {
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        return leitura;
+    }
+}
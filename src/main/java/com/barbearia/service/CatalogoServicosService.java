@@ -0,0 +1,156 @@
+package com.barbearia.service;
+
+import com.barbearia.model.TipoServico;
+import com.barbearia.repository.TipoServicoRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fotografia imutável do catálogo de serviços. Orçamentos e validações de marcação leem
+ * daqui sem ir ao banco; cada gravação publica uma nova fotografia depois do commit.
+ */
+@Service
+public class CatalogoServicosService {
+
+    private static final int DURACAO_PADRAO_MINUTOS = 30;
+
+    @Autowired
+    private TipoServicoRepository tipoServicoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile Map<Long, Item> itens;
+
+    public Orcamento orcar(List<Long> servicoIds) {
+        if (servicoIds == null || servicoIds.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum serviço válido selecionado");
+        }
+
+        Map<Long, Item> catalogo = itens();
+        List<Item> selecionados = new ArrayList<>(servicoIds.size());
+        long valorCentavos = 0;
+        int duracaoMinutos = 0;
+        for (Long id : new LinkedHashSet<>(servicoIds)) {
+            Item item = catalogo.get(id);
+            if (item == null) {
+                throw new IllegalArgumentException("Serviço não encontrado com ID: " + id);
+            }
+            if (!item.ativo()) {
+                throw new IllegalArgumentException("Serviço inativo: " + item.nome());
+            }
+            selecionados.add(item);
+            valorCentavos += item.precoCentavos();
+            duracaoMinutos += item.duracaoMinutos();
+        }
+        return new Orcamento(List.copyOf(selecionados), valorCentavos, duracaoMinutos);
+    }
+
+    // Chamado dentro da transação que gravou o serviço; a troca só acontece se ela for confirmada
+    public void atualizar(TipoServico tipoServico) {
+        Item item = Item.de(tipoServico);
+        Transacoes.aposCommit(() -> publicar(item));
+    }
+
+    public void recarregar() {
+        Transacoes.aposCommit(() -> {
+            synchronized (this) {
+                itens = carregar();
+            }
+        });
+    }
+
+    // Carregado antes do servidor aceitar requisições; assim a primeira leva de marcações não disputa a carga
+    @PostConstruct
+    void aquecer() {
+        itens();
+    }
+
+    // A carga pede uma conexão nova: fica fora do monitor para que ninguém espere nele segurando outra
+    private Map<Long, Item> itens() {
+        Map<Long, Item> atual = itens;
+        if (atual == null) {
+            Map<Long, Item> carregados = carregar();
+            synchronized (this) {
+                if (itens == null) {
+                    itens = carregados;
+                }
+                atual = itens;
+            }
+        }
+        return atual;
+    }
+
+    // Copy-on-write: leitores continuam com a fotografia anterior até a nova ser publicada
+    private synchronized void publicar(Item item) {
+        Map<Long, Item> novo = new HashMap<>(itens());
+        novo.put(item.id(), item);
+        itens = Map.copyOf(novo);
+    }
+
+    // Sempre no primário: a fotografia vale até a próxima gravação
+    private Map<Long, Item> carregar() {
+        TransactionTemplate primario = new TransactionTemplate(transactionManager);
+        primario.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return primario.execute(status -> {
+            Map<Long, Item> carregados = new HashMap<>();
+            for (TipoServico tipoServico : tipoServicoRepository.findAll()) {
+                carregados.put(tipoServico.getId(), Item.de(tipoServico));
+            }
+            return Map.copyOf(carregados);
+        });
+    }
+
+    static long paraCentavos(Double valor) {
+        return BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static double paraReais(long centavos) {
+        return BigDecimal.valueOf(centavos, 2).doubleValue();
+    }
+
+    public record Item(Long id, String nome, String descricao, long precoCentavos, int duracaoMinutos, boolean ativo) {
+
+        static Item de(TipoServico tipoServico) {
+            return new Item(
+                tipoServico.getId(),
+                tipoServico.getNome(),
+                tipoServico.getDescricao(),
+                paraCentavos(tipoServico.getPreco()),
+                tipoServico.getDuracaoMinutos() != null ? tipoServico.getDuracaoMinutos() : DURACAO_PADRAO_MINUTOS,
+                !Boolean.FALSE.equals(tipoServico.getAtivo())
+            );
+        }
+
+        // Instância destacada com o id do catálogo: serve de referência na associação sem consultar o banco
+        public TipoServico paraEntidade() {
+            TipoServico tipoServico = new TipoServico(nome, descricao, paraReais(precoCentavos), duracaoMinutos);
+            tipoServico.setId(id);
+            tipoServico.setAtivo(ativo);
+            return tipoServico;
+        }
+    }
+
+    public record Orcamento(List<Item> itens, long valorCentavos, int duracaoMinutos) {
+
+        public double valorTotal() {
+            return paraReais(valorCentavos);
+        }
+
+        public List<TipoServico> servicos() {
+            return new ArrayList<>(itens.stream().map(Item::paraEntidade).toList());
+        }
+    }
+}
@@ -16,6 +16,9 @@ public class ClienteService {
     @Autowired
     private ClienteRepository clienteRepository;
     
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+    
     public Cliente salvarCliente(Cliente cliente) {
         if (cliente.getNomeCompleto() == null || cliente.getNomeCompleto().trim().isEmpty()) {
             throw new IllegalArgumentException("Nome completo é obrigatório");
@@ -32,10 +35,12 @@ public class ClienteService {
         return clienteRepository.save(cliente);
     }
     
+    @Transactional(readOnly = true)
     public Optional<Cliente> buscarPorId(Long id) {
         return clienteRepository.findById(id);
     }
     
+    @Transactional(readOnly = true)
     public Optional<Cliente> buscarPorEmail(String email) {
         return clienteRepository.findByEmail(email);
     }
@@ -56,6 +61,7 @@ public class ClienteService {
         }
     }
     
+    @Transactional(readOnly = true)
     public List<Cliente> listarTodos() {
         return clienteRepository.findAll();
     }
@@ -63,11 +69,13 @@ public class ClienteService {
     public void deletarCliente(Long id) {
         if (clienteRepository.existsById(id)) {
             clienteRepository.deleteById(id);
+            versaoRecursosService.alterado(VersaoRecursosService.Recurso.CLIENTES);
         } else {
             throw new IllegalArgumentException("Cliente não encontrado com ID: " + id);
         }
     }
     
+    @Transactional(readOnly = true)
     public boolean existeClienteComEmail(String email) {
         return clienteRepository.existsByEmail(email);
     }
@@ -89,6 +97,7 @@ public class ClienteService {
                 cliente.setEmail(clienteAtualizado.getEmail());
             }
             
+            versaoRecursosService.alterado(VersaoRecursosService.Recurso.CLIENTES);
             return clienteRepository.save(cliente);
         } else {
             throw new IllegalArgumentException("Cliente não encontrado com ID: " + id);
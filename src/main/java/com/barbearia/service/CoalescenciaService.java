@@ -0,0 +1,108 @@
+package com.barbearia.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight para leituras quentes: chamadas idênticas e simultâneas compartilham uma única
+ * execução. A primeira chamada de uma chave executa na própria thread; as que chegam enquanto
+ * ela roda esperam o mesmo resultado, até o prazo da chave, e depois disso executam sozinhas.
+ * Nada é guardado depois que a execução termina: quem chega depois faz uma nova leitura.
+ */
+@Service
+public class CoalescenciaService {
+
+    private final Map<String, CompletableFuture<Object>> emAndamento = new ConcurrentHashMap<>();
+
+    private final Map<String, Contadores> contadores = new ConcurrentHashMap<>();
+
+    // O resultado é compartilhado entre as requisições: a carga deve devolver algo imutável
+    @SuppressWarnings("unchecked")
+    public <T> T executar(String nome, Object chave, long esperaMs, Supplier<T> carga) {
+        Contadores doNome = contadores.computeIfAbsent(nome, n -> new Contadores());
+        doNome.chamadas.increment();
+
+        // Quem já está numa transação segura uma conexão: esperar outra requisição com ela presa
+        // é o que esgota o pool, então carrega direto
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            doNome.execucoes.increment();
+            return carga.get();
+        }
+
+        String id = nome + ":" + chave;
+        CompletableFuture<Object> nova = new CompletableFuture<>();
+        CompletableFuture<Object> existente = emAndamento.putIfAbsent(id, nova);
+        if (existente == null) {
+            doNome.execucoes.increment();
+            try {
+                T resultado = carga.get();
+                nova.complete(resultado);
+                return resultado;
+            } catch (RuntimeException | Error e) {
+                nova.completeExceptionally(e);
+                throw e;
+            } finally {
+                emAndamento.remove(id, nova);
+            }
+        }
+
+        try {
+            T resultado = (T) existente.get(esperaMs, TimeUnit.MILLISECONDS);
+            doNome.compartilhadas.increment();
+            return resultado;
+        } catch (TimeoutException e) {
+            doNome.esperasEsgotadas.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            doNome.esperasEsgotadas.increment();
+        } catch (ExecutionException e) {
+            // Mesmo erro da execução compartilhada, sem repetir a consulta que acabou de falhar
+            doNome.compartilhadas.increment();
+            if (e.getCause() instanceof RuntimeException erro) {
+                throw erro;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        // Execução compartilhada lenta demais: esta chamada segue por conta própria
+        doNome.execucoes.increment();
+        return carga.get();
+    }
+
+    public Map<String, Object> resumo() {
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        contadores.forEach((nome, doNome) -> {
+            long chamadas = doNome.chamadas.sum();
+            long compartilhadas = doNome.compartilhadas.sum();
+            resumo.put(nome, Map.of(
+                "chamadas", chamadas,
+                "execucoes", doNome.execucoes.sum(),
+                "compartilhadas", compartilhadas,
+                "esperasEsgotadas", doNome.esperasEsgotadas.sum(),
+                "razaoCoalescencia", chamadas == 0 ? 0.0 : (double) compartilhadas / chamadas
+            ));
+        });
+        resumo.put("emAndamento", emAndamento.size());
+        return resumo;
+    }
+
+    static class Contadores {
+
+        final LongAdder chamadas = new LongAdder();
+
+        final LongAdder execucoes = new LongAdder();
+
+        final LongAdder compartilhadas = new LongAdder();
+
+        final LongAdder esperasEsgotadas = new LongAdder();
+    }
+}
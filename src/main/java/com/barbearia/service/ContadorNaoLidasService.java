@@ -0,0 +1,123 @@
+package com.barbearia.service;
+
+import com.barbearia.repository.MensagemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mensagens não lidas de cada barbeiro mantidas em memória. O contador é lido do banco
+ * na primeira consulta e depois acompanha as gravações confirmadas; a reconciliação
+ * periódica corrige o que escapou entre a carga e os commits concorrentes. Leituras
+ * ainda no buffer de {@link LeiturasPendentesService} são descontadas do valor do banco.
+ */
+@Service
+public class ContadorNaoLidasService {
+
+    @Autowired
+    private MensagemRepository mensagemRepository;
+
+    @Autowired
+    private LeiturasPendentesService leiturasPendentesService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${barbearia.nao-lidas.lote-reconciliacao:500}")
+    private int loteReconciliacao;
+
+    private final Map<Long, Contador> contadores = new ConcurrentHashMap<>();
+
+    public long naoLidas(Long barbeiroId) {
+        return contadorDo(barbeiroId).valor();
+    }
+
+    // Barbeiro ainda não carregado fica de fora: a carga já vai ler o valor confirmado no banco
+    public void alterar(Long barbeiroId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        Transacoes.aposCommit(() -> {
+            Contador contador = contadores.get(barbeiroId);
+            if (contador != null) {
+                contador.somar(delta);
+            }
+        });
+    }
+
+    // Uma consulta agrupada por lote de barbeiros; sem transação de chamador, vai sempre ao primário
+    @Scheduled(fixedDelayString = "${barbearia.nao-lidas.reconciliacao-ms:60000}")
+    public void reconciliar() {
+        List<Long> barbeiroIds = new ArrayList<>(contadores.keySet());
+        for (int inicio = 0; inicio < barbeiroIds.size(); inicio += loteReconciliacao) {
+            List<Long> lote = barbeiroIds.subList(inicio, Math.min(inicio + loteReconciliacao, barbeiroIds.size()));
+
+            Map<Long, Contador.Estado> antes = new HashMap<>();
+            lote.forEach(id -> antes.put(id, contadores.get(id).estado.get()));
+
+            Map<Long, Long> reais = new HashMap<>();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for (Object[] linha : mensagemRepository.countNaoLidasAgrupadas(lote)) {
+                    reais.put((Long) linha[0], (Long) linha[1]);
+                }
+            });
+
+            for (Long id : lote) {
+                long real = reais.getOrDefault(id, 0L) - leiturasPendentesService.quantidade(id);
+                contadores.get(id).corrigir(antes.get(id), real);
+            }
+        }
+    }
+
+    // Carrega fora do mapa pelo mesmo motivo do índice de agenda: a consulta não pode segurar a entrada
+    private Contador contadorDo(Long barbeiroId) {
+        Contador contador = contadores.get(barbeiroId);
+        if (contador == null) {
+            long naoLidas = new TransactionTemplate(transactionManager).execute(status ->
+                mensagemRepository.countNaoLidasByDestinatarioId(barbeiroId))
+                - leiturasPendentesService.quantidade(barbeiroId);
+            Contador carregado = new Contador(naoLidas);
+            contador = contadores.putIfAbsent(barbeiroId, carregado);
+            if (contador == null) {
+                contador = carregado;
+            }
+        }
+        return contador;
+    }
+
+    static class Contador {
+
+        // Valor e número de alterações trocados juntos, para a reconciliação saber se perdeu a corrida
+        private final AtomicReference<Estado> estado;
+
+        Contador(long valor) {
+            this.estado = new AtomicReference<>(new Estado(valor, 0));
+        }
+
+        long valor() {
+            return Math.max(0, estado.get().valor());
+        }
+
+        void somar(long delta) {
+            estado.updateAndGet(atual -> new Estado(atual.valor() + delta, atual.alteracoes() + 1));
+        }
+
+        // Só grava o valor do banco se nenhum delta chegou desde a leitura; senão fica para a próxima rodada
+        void corrigir(Estado lido, long real) {
+            estado.compareAndSet(lido, new Estado(real, lido.alteracoes()));
+        }
+
+        record Estado(long valor, long alteracoes) {
+        }
+    }
+}
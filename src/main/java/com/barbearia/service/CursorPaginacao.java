@@ -0,0 +1,33 @@
+package com.barbearia.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Cursor opaco das listagens paginadas por chave (data, id)
+final class CursorPaginacao {
+
+    private CursorPaginacao() {
+    }
+
+    static String codificar(LocalDateTime data, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((data + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Retorna null quando não há cursor, ou seja, na primeira página
+    static Posicao decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Posicao(LocalDateTime.parse(partes[0]), Long.valueOf(partes[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    record Posicao(LocalDateTime data, Long id) {
+    }
+}
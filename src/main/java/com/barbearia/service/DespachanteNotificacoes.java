@@ -0,0 +1,170 @@
+package com.barbearia.service;
+
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.EventoAgendamento;
+import com.barbearia.repository.AgendamentoRepository;
+import com.barbearia.repository.EventoAgendamentoRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Lê o outbox em lotes e transforma cada evento em {@link com.barbearia.model.Mensagem}.
+ * A entrega é pelo menos uma vez: o lote só é marcado como processado na mesma transação
+ * que grava as mensagens, e um evento já convertido (mensagens.evento_id) é ignorado.
+ */
+@Service
+public class DespachanteNotificacoes {
+
+    @Autowired
+    private EventoAgendamentoRepository eventoAgendamentoRepository;
+
+    @Autowired
+    private AgendamentoRepository agendamentoRepository;
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${barbearia.notificacoes.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    @Value("${barbearia.notificacoes.maximo-tentativas:8}")
+    private int maximoTentativas;
+
+    @Value("${barbearia.notificacoes.espera-base-ms:1000}")
+    private long esperaBaseMs;
+
+    @Value("${barbearia.notificacoes.retencao-horas:168}")
+    private long retencaoHoras;
+
+    private final ExecutorService executor;
+
+    // Uma permissão por despachante: nunca há mais lotes em andamento que a concorrência configurada
+    private final Semaphore vagas;
+
+    public DespachanteNotificacoes(@Value("${barbearia.notificacoes.despachantes:2}") int despachantes) {
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(despachantes, tarefa -> {
+            Thread thread = new Thread(tarefa, "despachante-notificacoes-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.vagas = new Semaphore(despachantes);
+    }
+
+    public void acordar() {
+        if (vagas.tryAcquire()) {
+            try {
+                executor.execute(this::drenar);
+            } catch (RuntimeException e) {
+                vagas.release();
+            }
+        }
+    }
+
+    // Rede de segurança para eventos sem aviso (outra instância, reinício, nova tentativa agendada)
+    @Scheduled(fixedDelayString = "${barbearia.notificacoes.intervalo-ms:1000}")
+    public void verificarPendentes() {
+        acordar();
+    }
+
+    @Scheduled(fixedDelayString = "${barbearia.notificacoes.intervalo-limpeza-ms:3600000}")
+    public void limparProcessados() {
+        novaTransacao().executeWithoutResult(status ->
+            eventoAgendamentoRepository.deleteProcessadosAntesDe(LocalDateTime.now().minusHours(retencaoHoras)));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    private void drenar() {
+        try {
+            while (processarLote() == tamanhoLote) {
+                // lote cheio: provavelmente há mais eventos esperando
+            }
+        } finally {
+            vagas.release();
+        }
+    }
+
+    private int processarLote() {
+        List<Long> reservados = new ArrayList<>();
+        try {
+            return novaTransacao().execute(status -> {
+                List<EventoAgendamento> eventos = eventoAgendamentoRepository.reservarPendentes(
+                    LocalDateTime.now(), PageRequest.of(0, tamanhoLote));
+                eventos.forEach(evento -> reservados.add(evento.getId()));
+                converter(eventos);
+                return eventos.size();
+            });
+        } catch (RuntimeException e) {
+            // Um evento com problema não pode segurar o lote: refaz um a um e só penaliza quem falhar
+            reservados.forEach(this::processarIsolado);
+            return reservados.size();
+        }
+    }
+
+    private void processarIsolado(Long eventoId) {
+        try {
+            novaTransacao().executeWithoutResult(status ->
+                eventoAgendamentoRepository.reservar(eventoId).ifPresent(evento -> converter(List.of(evento))));
+        } catch (RuntimeException e) {
+            novaTransacao().executeWithoutResult(status ->
+                eventoAgendamentoRepository.reservar(eventoId).ifPresent(evento ->
+                    evento.registrarFalha(e.toString(), maximoTentativas, esperaBaseMs)));
+        }
+    }
+
+    private void converter(List<EventoAgendamento> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+
+        Set<Long> jaGerados = mensagemService.eventosJaGerados(
+            eventos.stream().map(EventoAgendamento::getId).toList());
+        Map<Long, Agendamento> agendamentos = agendamentoRepository.findComDetalhesByIdIn(
+                eventos.stream().map(EventoAgendamento::getAgendamentoId).collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(Agendamento::getId, Function.identity()));
+
+        for (EventoAgendamento evento : eventos) {
+            if (!jaGerados.contains(evento.getId())) {
+                Agendamento agendamento = agendamentos.get(evento.getAgendamentoId());
+                if (agendamento == null) {
+                    throw new IllegalStateException("Agendamento não encontrado com ID: " + evento.getAgendamentoId());
+                }
+                mensagemService.criarMensagemAgendamento(agendamento, evento.getTipo(), evento.getId());
+            }
+            evento.marcarProcessado();
+        }
+    }
+
+    private TransactionTemplate novaTransacao() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -0,0 +1,127 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.BarbeiroAtivo;
+import com.barbearia.dto.DisponibilidadeBarbeiro;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+@Service
+@Transactional
+public class DisponibilidadeService {
+
+    private static final int MINUTOS_POR_DIA = 24 * 60;
+    private static final int MAXIMO_DIAS_BUSCA = 31;
+
+    @Autowired
+    private BarbeiroService barbeiroService;
+
+    @Autowired
+    private CatalogoServicosService catalogoServicosService;
+
+    @Autowired
+    private IndiceAgendaService indiceAgendaService;
+
+    @Value("${barbearia.expediente.abertura:09:00}")
+    private LocalTime abertura;
+
+    @Value("${barbearia.expediente.fechamento:19:00}")
+    private LocalTime fechamento;
+
+    @Value("${barbearia.disponibilidade.passo-minutos:15}")
+    private int passoMinutos;
+
+    @Transactional(readOnly = true)
+    public List<DisponibilidadeBarbeiro> buscarHorariosLivres(List<Long> servicoIds, LocalDateTime de,
+                                                              LocalDateTime ate, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser positivo");
+        }
+
+        if (!ate.isAfter(de)) {
+            throw new IllegalArgumentException("Data final deve ser posterior à data inicial");
+        }
+
+        if (ChronoUnit.DAYS.between(de, ate) > MAXIMO_DIAS_BUSCA) {
+            throw new IllegalArgumentException("Período de busca não pode exceder " + MAXIMO_DIAS_BUSCA + " dias");
+        }
+
+        int duracaoTotal = catalogoServicosService.orcar(servicoIds).duracaoMinutos();
+
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime inicioBusca = de.isBefore(agora) ? agora : de;
+
+        List<DisponibilidadeBarbeiro> resultado = new ArrayList<>();
+        for (BarbeiroAtivo barbeiro : barbeiroService.listarBarbeirosAtivos()) {
+            List<LocalDateTime> horarios = horariosLivres(barbeiro.id(), duracaoTotal, inicioBusca, ate, limite);
+            if (!horarios.isEmpty()) {
+                resultado.add(new DisponibilidadeBarbeiro(barbeiro.id(), barbeiro.nome(), horarios));
+            }
+        }
+        return resultado;
+    }
+
+    private List<LocalDateTime> horariosLivres(Long barbeiroId, int duracao, LocalDateTime de,
+                                               LocalDateTime ate, int limite) {
+        List<LocalDateTime> horarios = new ArrayList<>();
+        int minutoAbertura = abertura.toSecondOfDay() / 60;
+        int minutoFechamento = fechamento.toSecondOfDay() / 60;
+
+        for (LocalDate dia = de.toLocalDate(); !dia.isAfter(ate.toLocalDate()) && horarios.size() < limite;
+             dia = dia.plusDays(1)) {
+
+            BitSet ocupacao = ocupacaoDoDia(barbeiroId, dia);
+
+            // Primeiro horário do dia alinhado ao passo, respeitando o início da busca
+            int minuto = minutoAbertura;
+            if (dia.equals(de.toLocalDate())) {
+                int minutoInicio = de.getHour() * 60 + de.getMinute() + (de.getSecond() > 0 || de.getNano() > 0 ? 1 : 0);
+                if (minutoInicio > minuto) {
+                    minuto += ((minutoInicio - minuto + passoMinutos - 1) / passoMinutos) * passoMinutos;
+                }
+            }
+
+            while (minuto + duracao <= minutoFechamento && horarios.size() < limite) {
+                LocalDateTime horario = dia.atStartOfDay().plusMinutes(minuto);
+                if (horario.plusMinutes(duracao).isAfter(ate)) {
+                    break;
+                }
+
+                int proximoOcupado = ocupacao.nextSetBit(minuto);
+                if (proximoOcupado == -1 || proximoOcupado >= minuto + duracao) {
+                    horarios.add(horario);
+                    minuto += passoMinutos;
+                } else {
+                    // Pula direto para o próximo minuto livre após o bloco ocupado
+                    int proximoLivre = ocupacao.nextClearBit(proximoOcupado);
+                    minuto += Math.max(passoMinutos,
+                        ((proximoLivre - minuto + passoMinutos - 1) / passoMinutos) * passoMinutos);
+                }
+            }
+        }
+        return horarios;
+    }
+
+    // Um bit por minuto do dia; agendamentos que atravessam a meia-noite são recortados
+    private BitSet ocupacaoDoDia(Long barbeiroId, LocalDate dia) {
+        LocalDateTime inicioDia = dia.atStartOfDay();
+        LocalDateTime fimDia = inicioDia.plusDays(1);
+        BitSet ocupacao = new BitSet(MINUTOS_POR_DIA);
+
+        for (IndiceAgendaService.Intervalo intervalo : indiceAgendaService.intervalosEntre(barbeiroId, inicioDia, fimDia)) {
+            int de = (int) Math.max(0, ChronoUnit.MINUTES.between(inicioDia, intervalo.inicio()));
+            int ate = (int) Math.min(MINUTOS_POR_DIA, ChronoUnit.MINUTES.between(inicioDia, intervalo.fim()));
+            ocupacao.set(de, ate);
+        }
+        return ocupacao;
+    }
+}
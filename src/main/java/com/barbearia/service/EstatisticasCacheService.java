@@ -0,0 +1,60 @@
+package com.barbearia.service;
+
+import com.barbearia.repository.BarbeiroRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class EstatisticasCacheService {
+
+    private static final List<String> REGIOES_ENTIDADES = List.of("barbeiros", "tipos-servico");
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public Map<String, Object> resumo() {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regioes = new LinkedHashMap<>();
+        for (String regiao : REGIOES_ENTIDADES) {
+            regioes.put(regiao, daRegiao(estatisticas.getDomainDataRegionStatistics(regiao)));
+        }
+        regioes.put(BarbeiroRepository.REGIAO_CONSULTAS,
+            daRegiao(estatisticas.getQueryRegionStatistics(BarbeiroRepository.REGIAO_CONSULTAS)));
+
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("habilitado", estatisticas.isStatisticsEnabled());
+        resumo.put("entidades", Map.of(
+            "acertos", estatisticas.getSecondLevelCacheHitCount(),
+            "faltas", estatisticas.getSecondLevelCacheMissCount(),
+            "insercoes", estatisticas.getSecondLevelCachePutCount()
+        ));
+        resumo.put("consultas", Map.of(
+            "acertos", estatisticas.getQueryCacheHitCount(),
+            "faltas", estatisticas.getQueryCacheMissCount(),
+            "insercoes", estatisticas.getQueryCachePutCount()
+        ));
+        resumo.put("regioes", regioes);
+        return resumo;
+    }
+
+    // A região de consultas só aparece depois da primeira consulta cacheável
+    private Map<String, Object> daRegiao(CacheRegionStatistics regiao) {
+        if (regiao == null) {
+            return Map.of("acertos", 0L, "faltas", 0L, "insercoes", 0L);
+        }
+        return Map.of(
+            "acertos", regiao.getHitCount(),
+            "faltas", regiao.getMissCount(),
+            "insercoes", regiao.getPutCount()
+        );
+    }
+}
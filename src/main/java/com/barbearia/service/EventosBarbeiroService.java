@@ -0,0 +1,367 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.AlteracaoAgenda;
+import com.barbearia.dto.AlteracaoNaoLidas;
+import com.barbearia.model.Agendamento;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stream de eventos (SSE) por barbeiro. Quem publica só enfileira: cada conexão tem uma
+ * fila limitada esvaziada por um pool de escritores, e a conexão que não acompanha é
+ * encerrada para reconectar com Last-Event-ID e receber o que perdeu da janela de replay.
+ * Só os escritores tocam no emitter: um envio preso segura o emitter, e quem publica ou
+ * encerra não pode ficar esperando por ele.
+ */
+@Service
+public class EventosBarbeiroService {
+
+    public enum TipoEvento {
+        AGENDAMENTO_CRIADO("agendamento-criado"),
+        AGENDAMENTO_ALTERADO("agendamento-alterado"),
+        AGENDAMENTO_CANCELADO("agendamento-cancelado"),
+        AGENDAMENTO_CONFIRMADO("agendamento-confirmado"),
+        AGENDAMENTO_RECUSADO("agendamento-recusado"),
+        NAO_LIDAS("nao-lidas"),
+        RESINCRONIZAR("resincronizar");
+
+        private final String nome;
+
+        TipoEvento(String nome) {
+            this.nome = nome;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+    }
+
+    // Ids crescem também entre restarts, então um Last-Event-ID antigo cai sempre fora da janela
+    private final AtomicLong sequencia = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private final long inicioProcesso = sequencia.get();
+
+    private final Map<Long, Canal> canais = new ConcurrentHashMap<>();
+
+    // Itens de controle na fila de cada conexão, ao lado dos eventos
+    private static final Object ABERTURA = new Object();
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final ThreadPoolExecutor escritores;
+
+    private final int escritoresBase;
+
+    // Escritores presos em envios sem progresso; cada um ganha um substituto até este limite
+    private int escritoresPresos;
+
+    @Value("${barbearia.eventos.capacidade-conexao:256}")
+    private int capacidadeConexao;
+
+    @Value("${barbearia.eventos.janela-replay:200}")
+    private int janelaReplay;
+
+    @Value("${barbearia.eventos.janela-replay-ms:600000}")
+    private long janelaReplayMs;
+
+    @Value("${barbearia.eventos.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${barbearia.eventos.reconexao-ms:3000}")
+    private long reconexaoMs;
+
+    @Value("${barbearia.eventos.prazo-envio-ms:10000}")
+    private long prazoEnvioMs;
+
+    public EventosBarbeiroService(@Value("${barbearia.eventos.escritores:4}") int escritores) {
+        AtomicInteger contador = new AtomicInteger();
+        this.escritoresBase = escritores;
+        this.escritores = new ThreadPoolExecutor(escritores, escritores, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), tarefa -> {
+                Thread thread = new Thread(tarefa, "eventos-barbeiro-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    // Não toca no banco: a conexão não deve ficar associada a um stream de longa duração
+    public SseEmitter conectar(Long barbeiroId, String ultimoEventoId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Conexao conexao = new Conexao(emitter);
+        canalDo(barbeiroId).conectar(conexao, ultimoId(ultimoEventoId));
+        return emitter;
+    }
+
+    public void agendamentoAlterado(Agendamento agendamento, TipoEvento tipo) {
+        Long barbeiroId = agendamento.getBarbeiro().getId();
+        AlteracaoAgenda alteracao = new AlteracaoAgenda(
+            agendamento.getId(),
+            agendamento.getStatus(),
+            agendamento.getDataHorario(),
+            agendamento.getDataHorario().plusMinutes(agendamento.getDuracaoTotal()),
+            agendamento.getCliente().getNomeCompleto()
+        );
+        Transacoes.aposCommit(() -> canalDo(barbeiroId).publicar(tipo, alteracao));
+    }
+
+    public void naoLidasAlteradas(Long barbeiroId, long delta) {
+        if (delta != 0) {
+            Transacoes.aposCommit(() -> canalDo(barbeiroId).publicar(TipoEvento.NAO_LIDAS, new AlteracaoNaoLidas(delta)));
+        }
+    }
+
+    // Comentário periódico: mantém proxies abertos e revela conexões mortas
+    @Scheduled(fixedDelayString = "${barbearia.eventos.heartbeat-ms:15000}")
+    public void heartbeat() {
+        canais.values().forEach(Canal::heartbeat);
+    }
+
+    // Envio sem progresso dentro do prazo: a conexão é encerrada e o escritor preso ganha um substituto
+    // até o container desistir da escrita (server.tomcat.connection-timeout) e soltá-lo
+    @Scheduled(fixedDelayString = "${barbearia.eventos.verificacao-envio-ms:1000}")
+    public void verificarEnvios() {
+        long limite = System.currentTimeMillis() - prazoEnvioMs;
+        canais.values().forEach(canal -> canal.verificarEnvios(limite));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        canais.values().forEach(Canal::encerrar);
+        escritores.shutdown();
+    }
+
+    private synchronized boolean substituirEscritor() {
+        if (escritoresPresos >= escritoresBase) {
+            return false;
+        }
+        escritoresPresos++;
+        escritores.setMaximumPoolSize(escritoresBase + escritoresPresos);
+        escritores.setCorePoolSize(escritoresBase + escritoresPresos);
+        return true;
+    }
+
+    private synchronized void devolverEscritor() {
+        escritoresPresos--;
+        escritores.setCorePoolSize(escritoresBase + escritoresPresos);
+        escritores.setMaximumPoolSize(escritoresBase + escritoresPresos);
+    }
+
+    private Canal canalDo(Long barbeiroId) {
+        return canais.computeIfAbsent(barbeiroId, id -> new Canal());
+    }
+
+    private Long ultimoId(String ultimoEventoId) {
+        if (ultimoEventoId == null || ultimoEventoId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(ultimoEventoId.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    record Evento(long id, TipoEvento tipo, Object dados, long criadoEm) {
+    }
+
+    // Conexões de um barbeiro e a janela de replay; publicar e conectar sob a mesma trava evita lacunas e duplicatas
+    private class Canal {
+
+        private final Deque<Evento> janela = new ArrayDeque<>();
+
+        private final Set<Conexao> conexoes = ConcurrentHashMap.newKeySet();
+
+        // Maior id que já saiu da janela; um cliente parado antes dele pode ter perdido eventos
+        private long limiteReplay = inicioProcesso;
+
+        synchronized void publicar(TipoEvento tipo, Object dados) {
+            Evento evento = new Evento(sequencia.incrementAndGet(), tipo, dados, System.currentTimeMillis());
+            janela.addLast(evento);
+            podar(evento.criadoEm());
+            conexoes.forEach(conexao -> conexao.enfileirar(evento));
+        }
+
+        synchronized void conectar(Conexao conexao, Long ultimoId) {
+            podar(System.currentTimeMillis());
+            conexao.aoEncerrar(() -> conexoes.remove(conexao));
+            conexao.enfileirar(ABERTURA);
+
+            if (ultimoId != null) {
+                if (ultimoId < limiteReplay) {
+                    conexao.enfileirar(new Evento(sequencia.get(), TipoEvento.RESINCRONIZAR, Map.of(), 0));
+                } else {
+                    for (Evento evento : janela) {
+                        if (evento.id() > ultimoId) {
+                            conexao.enfileirar(evento);
+                        }
+                    }
+                }
+            }
+            conexoes.add(conexao);
+        }
+
+        void heartbeat() {
+            conexoes.forEach(conexao -> conexao.enfileirar(HEARTBEAT));
+        }
+
+        void verificarEnvios(long limite) {
+            conexoes.forEach(conexao -> conexao.verificarEnvio(limite));
+        }
+
+        void encerrar() {
+            new ArrayList<>(conexoes).forEach(Conexao::encerrar);
+        }
+
+        private void podar(long agora) {
+            while (!janela.isEmpty() &&
+                   (janela.size() > janelaReplay || agora - janela.peekFirst().criadoEm() > janelaReplayMs)) {
+                limiteReplay = janela.removeFirst().id();
+            }
+        }
+    }
+
+    private class Conexao {
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<Object> fila = new ArrayBlockingQueue<>(capacidadeConexao);
+
+        private final AtomicBoolean agendada = new AtomicBoolean();
+
+        private final AtomicBoolean encerrada = new AtomicBoolean();
+
+        private final AtomicBoolean completada = new AtomicBoolean();
+
+        // Início do envio em andamento, 0 sem envio; lido pela verificação de envios presos
+        private long enviandoDesde;
+
+        private boolean substituida;
+
+        private volatile Runnable aoEncerrar = () -> { };
+
+        Conexao(SseEmitter emitter) {
+            this.emitter = emitter;
+            emitter.onCompletion(this::encerrar);
+            emitter.onTimeout(this::encerrar);
+            emitter.onError(erro -> encerrar());
+        }
+
+        void aoEncerrar(Runnable acao) {
+            aoEncerrar = acao;
+        }
+
+        void enfileirar(Object item) {
+            if (encerrada.get()) {
+                return;
+            }
+            if (!fila.offer(item)) {
+                // Cliente lento: derruba a conexão em vez de crescer a fila; ele volta pelo replay
+                encerrar();
+                return;
+            }
+            agendar();
+        }
+
+        void encerrar() {
+            if (encerrada.compareAndSet(false, true)) {
+                fila.clear();
+                aoEncerrar.run();
+                // Quem encerra pode ser um publicador: o complete fica com o escritor
+                agendar();
+            }
+        }
+
+        void verificarEnvio(long limite) {
+            boolean presa;
+            synchronized (this) {
+                presa = enviandoDesde != 0 && enviandoDesde < limite;
+                if (presa && !substituida) {
+                    substituida = substituirEscritor();
+                }
+            }
+            if (presa) {
+                encerrar();
+            }
+        }
+
+        private void agendar() {
+            if (agendada.compareAndSet(false, true)) {
+                try {
+                    escritores.execute(this::drenar);
+                } catch (RuntimeException e) {
+                    agendada.set(false);
+                    encerrar();
+                }
+            }
+        }
+
+        private void drenar() {
+            try {
+                Object item;
+                while (!encerrada.get() && (item = fila.poll()) != null) {
+                    marcarEnvio(System.currentTimeMillis());
+                    emitter.send(paraSse(item));
+                    marcarEnvio(0);
+                }
+            } catch (IOException | RuntimeException e) {
+                encerrar();
+            } finally {
+                marcarEnvio(0);
+                if (encerrada.get() && completada.compareAndSet(false, true)) {
+                    try {
+                        emitter.complete();
+                    } catch (RuntimeException e) {
+                        // já encerrado pelo container
+                    }
+                }
+                agendada.set(false);
+            }
+            if (encerrada.get() ? !completada.get() : !fila.isEmpty()) {
+                agendar();
+            }
+        }
+
+        private synchronized void marcarEnvio(long desde) {
+            enviandoDesde = desde;
+            if (desde == 0 && substituida) {
+                substituida = false;
+                devolverEscritor();
+            }
+        }
+
+        private SseEmitter.SseEventBuilder paraSse(Object item) {
+            if (item == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            if (item == ABERTURA) {
+                // Abre o stream de imediato e informa ao navegador o intervalo de reconexão
+                return SseEmitter.event().reconnectTime(reconexaoMs).comment("conectado");
+            }
+            Evento evento = (Evento) item;
+            return SseEmitter.event()
+                .id(String.valueOf(evento.id()))
+                .name(evento.tipo().getNome())
+                .data(evento.dados(), MediaType.APPLICATION_JSON);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.FiltroAgendamento;
+import com.barbearia.repository.AgendamentoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@Transactional(readOnly = true)
+public class ExportacaoService {
+
+    public enum Formato {
+        NDJSON, CSV
+    }
+
+    private static final String CABECALHO_CSV =
+        "id,dataHorario,dataFim,status,valorTotal,clienteNome,clienteEmail,barbeiroId,barbeiroNome,servicos,observacoes";
+
+    @Autowired
+    private AgendamentoRepository agendamentoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${barbearia.exportacao.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    // Lê o cursor em lotes, completa os serviços de cada lote e escreve direto na saída
+    public long exportar(FiltroAgendamento filtro, Formato formato, OutputStream saida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        if (formato == Formato.CSV) {
+            writer.write(CABECALHO_CSV);
+            writer.write('\n');
+        }
+
+        long total = 0;
+        try (Stream<AgendamentoResumo> resumos = agendamentoRepository.streamResumos(filtro, tamanhoLote)) {
+            Iterator<AgendamentoResumo> iterator = resumos.iterator();
+            List<AgendamentoResumo> lote = new ArrayList<>(tamanhoLote);
+
+            while (iterator.hasNext()) {
+                lote.add(iterator.next());
+                if (lote.size() == tamanhoLote || !iterator.hasNext()) {
+                    for (AgendamentoResumo resumo : agendamentoRepository.comServicos(lote)) {
+                        escrever(writer, resumo, formato);
+                    }
+                    total += lote.size();
+                    lote.clear();
+                    writer.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+
+        writer.flush();
+        return total;
+    }
+
+    private void escrever(Writer writer, AgendamentoResumo resumo, Formato formato) throws IOException {
+        if (formato == Formato.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(resumo));
+        } else {
+            writer.write(String.join(",",
+                String.valueOf(resumo.id()),
+                String.valueOf(resumo.dataHorario()),
+                resumo.dataFim() != null ? resumo.dataFim().toString() : "",
+                resumo.status().name(),
+                String.valueOf(resumo.valorTotal()),
+                csv(resumo.cliente().nomeCompleto()),
+                csv(resumo.cliente().email()),
+                String.valueOf(resumo.barbeiro().id()),
+                csv(resumo.barbeiro().nome()),
+                csv(resumo.servicos().stream()
+                    .map(AgendamentoResumo.ServicoResumo::nome)
+                    .collect(Collectors.joining("; "))),
+                csv(resumo.observacoes())
+            ));
+        }
+        writer.write('\n');
+    }
+
+    // Texto vindo do cliente: um valor iniciado por =, +, -, @, tab ou CR viraria fórmula ao abrir
+    // o arquivo numa planilha, então ganha um apóstrofo na frente e é lido como texto
+    private String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (!valor.isEmpty() && "=+-@\t\r".indexOf(valor.charAt(0)) >= 0) {
+            valor = "'" + valor;
+        }
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n") || valor.contains("\r")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+}
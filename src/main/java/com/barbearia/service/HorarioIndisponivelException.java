@@ -0,0 +1,10 @@
+package com.barbearia.service;
+
+public class HorarioIndisponivelException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public HorarioIndisponivelException(String message) {
+        super(message);
+    }
+}
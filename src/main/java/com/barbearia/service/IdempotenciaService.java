@@ -0,0 +1,345 @@
+package com.barbearia.service;
+
+import com.barbearia.model.ChaveIdempotencia;
+import com.barbearia.repository.ChaveIdempotenciaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Requisições com o cabeçalho Idempotency-Key executam no máximo uma vez por chave. A primeira
+ * executa; repetições concorrentes esperam por ela e recebem a mesma resposta, e repetições
+ * posteriores recebem a resposta guardada sem tocar no domínio. Só respostas 2xx ficam
+ * guardadas: um erro não alterou nada e a próxima tentativa executa de novo.
+ * Com {@code barbearia.idempotencia.persistir} as chaves valem também entre instâncias.
+ */
+@Service
+public class IdempotenciaService {
+
+    public static final String CABECALHO = "Idempotency-Key";
+
+    public static final String CABECALHO_REPETIDA = "Idempotency-Replayed";
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    @Autowired
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${barbearia.idempotencia.validade-minutos:60}")
+    private long validadeMinutos;
+
+    @Value("${barbearia.idempotencia.espera-ms:10000}")
+    private long esperaMs;
+
+    @Value("${barbearia.idempotencia.prazo-reserva-ms:60000}")
+    private long prazoReservaMs;
+
+    @Value("${barbearia.idempotencia.persistir:false}")
+    private boolean persistir;
+
+    private final Map<String, Entrada> entradas;
+
+    // Ordem de inserção: no limite sai a chave concluída mais antiga, mesmo que ainda não tenha vencido.
+    // Chave em execução nunca sai, senão uma repetição executaria de novo; o mapa pode passar do limite
+    // pelo número de requisições em andamento
+    public IdempotenciaService(@Value("${barbearia.idempotencia.limite:10000}") int limite) {
+        this.entradas = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> maisAntiga) {
+                if (size() > limite) {
+                    Iterator<Entrada> iterador = values().iterator();
+                    while (iterador.hasNext()) {
+                        if (iterador.next().resposta().isDone()) {
+                            iterador.remove();
+                            break;
+                        }
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    // Sem chave executa direto; o escopo separa endpoints e recursos que usem a mesma chave
+    public ResponseEntity<?> executar(String chave, String escopo, Object requisicao, Supplier<ResponseEntity<?>> acao) {
+        if (chave == null || chave.isBlank()) {
+            return acao.get();
+        }
+        if (chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            return ResponseEntity.badRequest().body(CABECALHO + " deve ter até " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+
+        String id = escopo + ":" + chave;
+        String impressao = impressao(escopo, requisicao);
+        long limiteEspera = System.currentTimeMillis() + esperaMs;
+        while (true) {
+            Entrada nova = new Entrada(impressao, LocalDateTime.now().plusMinutes(validadeMinutos));
+            Entrada existente = reservar(id, nova);
+            if (existente == null) {
+                return executarComo(id, nova, acao, limiteEspera);
+            }
+            if (!existente.impressao().equals(impressao)) {
+                return chaveReutilizada();
+            }
+            Optional<RespostaGuardada> guardada = aguardar(existente, limiteEspera);
+            if (guardada == null) {
+                return emAndamento();
+            }
+            if (guardada.isPresent()) {
+                return guardada.get().repetir();
+            }
+            // A original falhou e liberou a chave: esta tentativa concorre para executar
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${barbearia.idempotencia.intervalo-limpeza-ms:60000}")
+    public void limparExpiradas() {
+        LocalDateTime agora = LocalDateTime.now();
+        synchronized (entradas) {
+            entradas.values().removeIf(entrada -> entrada.venceu(agora));
+        }
+        if (persistir) {
+            novaTransacao().executeWithoutResult(status -> chaveIdempotenciaRepository.deleteExpiradas(agora));
+        }
+    }
+
+    private ResponseEntity<?> executarComo(String id, Entrada entrada, Supplier<ResponseEntity<?>> acao, long limiteEspera) {
+        if (persistir) {
+            Optional<ResponseEntity<?>> doBanco;
+            try {
+                doBanco = reservarNoBanco(id, entrada, limiteEspera);
+            } catch (RuntimeException e) {
+                liberar(id, entrada, false);
+                throw e;
+            }
+            // Quem esperava aqui volta a consultar o banco e encontra a mesma situação
+            if (doBanco.isPresent()) {
+                liberar(id, entrada, false);
+                return doBanco.get();
+            }
+        }
+
+        ResponseEntity<?> resposta;
+        try {
+            resposta = acao.get();
+        } catch (RuntimeException e) {
+            liberar(id, entrada, persistir);
+            throw e;
+        }
+        if (!resposta.getStatusCode().is2xxSuccessful()) {
+            liberar(id, entrada, persistir);
+            return resposta;
+        }
+
+        RespostaGuardada guardada = RespostaGuardada.de(resposta, objectMapper);
+        entrada.resposta().complete(Optional.of(guardada));
+        if (persistir) {
+            gravarNoBanco(id, guardada);
+        }
+        return resposta;
+    }
+
+    // Devolve a entrada de quem já reservou a chave, ou null se a reserva ficou com esta requisição
+    private Entrada reservar(String id, Entrada nova) {
+        synchronized (entradas) {
+            Entrada existente = entradas.get(id);
+            if (existente != null && !existente.venceu(LocalDateTime.now())) {
+                return existente;
+            }
+            entradas.put(id, nova);
+            return null;
+        }
+    }
+
+    // Tira a chave do banco e do mapa e só então acorda quem esperava; eles tentam executar de novo
+    private void liberar(String id, Entrada entrada, boolean noBanco) {
+        try {
+            if (noBanco) {
+                novaTransacao().executeWithoutResult(status -> chaveIdempotenciaRepository.liberar(id));
+            }
+        } finally {
+            synchronized (entradas) {
+                entradas.remove(id, entrada);
+            }
+            entrada.resposta().complete(Optional.empty());
+        }
+    }
+
+    // null quando o prazo de espera acabou antes da resposta
+    private Optional<RespostaGuardada> aguardar(Entrada entrada, long limiteEspera) {
+        try {
+            return entrada.resposta().get(Math.max(0, limiteEspera - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Vazio quando a linha da chave ficou com esta requisição; senão, a resposta a devolver no lugar da execução
+    private Optional<ResponseEntity<?>> reservarNoBanco(String id, Entrada entrada, long limiteEspera) {
+        while (true) {
+            Optional<Object[]> atual;
+            try {
+                atual = novaTransacao().execute(status -> {
+                    LocalDateTime agora = LocalDateTime.now();
+                    List<Object[]> registro = chaveIdempotenciaRepository.findRegistro(id);
+                    if (!registro.isEmpty() && !((LocalDateTime) registro.get(0)[4]).isBefore(agora)) {
+                        return Optional.of(registro.get(0));
+                    }
+                    chaveIdempotenciaRepository.deleteExpirada(id, agora);
+                    chaveIdempotenciaRepository.saveAndFlush(new ChaveIdempotencia(id, entrada.impressao(),
+                        entrada.expiraEm(), agora.plus(prazoReservaMs, ChronoUnit.MILLIS)));
+                    return Optional.<Object[]>empty();
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Outra instância inseriu a mesma chave ao mesmo tempo: relê a linha dela
+                continue;
+            }
+
+            if (atual.isEmpty()) {
+                return Optional.empty();
+            }
+            Object[] registro = atual.get();
+            if (!entrada.impressao().equals(registro[0])) {
+                return Optional.of(chaveReutilizada());
+            }
+            if (registro[1] != null) {
+                return Optional.of(new RespostaGuardada((Integer) registro[1], (String) registro[2], (String) registro[3]).repetir());
+            }
+            // A instância dona da reserva caiu sem concluir nem liberar: esta requisição assume a execução
+            if (registro[5] == null || ((LocalDateTime) registro[5]).isBefore(LocalDateTime.now())) {
+                Integer assumidas = novaTransacao().execute(status -> {
+                    LocalDateTime agora = LocalDateTime.now();
+                    return chaveIdempotenciaRepository.assumir(id, agora, agora.plus(prazoReservaMs, ChronoUnit.MILLIS));
+                });
+                if (assumidas != null && assumidas == 1) {
+                    return Optional.empty();
+                }
+                continue;
+            }
+            if (System.currentTimeMillis() >= limiteEspera) {
+                return Optional.of(emAndamento());
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.of(emAndamento());
+            }
+        }
+    }
+
+    // Resposta grande demais para a coluna fica só em memória e a chave é liberada para as outras instâncias
+    private void gravarNoBanco(String id, RespostaGuardada guardada) {
+        novaTransacao().executeWithoutResult(status -> {
+            if (guardada.corpo() != null && guardada.corpo().length() > ChaveIdempotencia.TAMANHO_MAXIMO_CORPO) {
+                chaveIdempotenciaRepository.liberar(id);
+                return;
+            }
+            chaveIdempotenciaRepository.concluir(id, guardada.status(), guardada.tipoConteudo(), guardada.corpo());
+        });
+    }
+
+    private TransactionTemplate novaTransacao() {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transacao;
+    }
+
+    private static ResponseEntity<?> chaveReutilizada() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+            .body(CABECALHO + " já usada com outra requisição");
+    }
+
+    private static ResponseEntity<?> emAndamento() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .body("Requisição com esta " + CABECALHO + " ainda em andamento, tente novamente");
+    }
+
+    // Mesma chave com outro corpo é erro do cliente, não repetição
+    static String impressao(String escopo, Object requisicao) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest((escopo + "|" + requisicao).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Entrada(String impressao, LocalDateTime expiraEm, CompletableFuture<Optional<RespostaGuardada>> resposta) {
+
+        Entrada(String impressao, LocalDateTime expiraEm) {
+            this(impressao, expiraEm, new CompletableFuture<>());
+        }
+
+        // Só vence depois de concluída: uma execução longa não pode ser substituída no meio
+        boolean venceu(LocalDateTime agora) {
+            return resposta.isDone() && expiraEm.isBefore(agora);
+        }
+    }
+
+    // Corpo já serializado: a repetição devolve exatamente os bytes da primeira resposta
+    record RespostaGuardada(int status, String tipoConteudo, String corpo) {
+
+        static RespostaGuardada de(ResponseEntity<?> resposta, ObjectMapper objectMapper) {
+            Object corpo = resposta.getBody();
+            MediaType tipo = resposta.getHeaders().getContentType();
+            try {
+                if (corpo == null || corpo instanceof String) {
+                    return new RespostaGuardada(resposta.getStatusCode().value(),
+                        (tipo != null ? tipo : MediaType.TEXT_PLAIN).toString(), (String) corpo);
+                }
+                return new RespostaGuardada(resposta.getStatusCode().value(),
+                    (tipo != null ? tipo : MediaType.APPLICATION_JSON).toString(), objectMapper.writeValueAsString(corpo));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Resposta não serializável", e);
+            }
+        }
+
+        ResponseEntity<?> repetir() {
+            return ResponseEntity.status(status)
+                .header(HttpHeaders.CONTENT_TYPE, tipoConteudo)
+                .header(CABECALHO_REPETIDA, "true")
+                .body(corpo);
+        }
+    }
+}
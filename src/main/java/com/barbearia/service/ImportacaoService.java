@@ -0,0 +1,178 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.AgendamentoImportado;
+import com.barbearia.dto.ClienteImportado;
+import com.barbearia.dto.ResultadoImportacao;
+import com.barbearia.dto.TipoServicoImportado;
+import com.barbearia.model.*;
+import com.barbearia.repository.AgendamentoRepository;
+import com.barbearia.repository.BarbeiroRepository;
+import com.barbearia.repository.ClienteRepository;
+import com.barbearia.repository.TipoServicoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em massa. Os registros são persistidos em blocos do tamanho do lote JDBC
+ * e o contexto de persistência é esvaziado a cada bloco, para que o Hibernate envie
+ * um único batch por bloco e a memória não cresça com o tamanho da importação.
+ */
+@Service
+@Transactional
+public class ImportacaoService {
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private BarbeiroRepository barbeiroRepository;
+
+    @Autowired
+    private TipoServicoRepository tipoServicoRepository;
+
+    @Autowired
+    private AgendamentoRepository agendamentoRepository;
+
+    @Autowired
+    private AgendamentoService agendamentoService;
+
+    @Autowired
+    private IndiceAgendaService indiceAgendaService;
+
+    @Autowired
+    private LembreteService lembreteService;
+
+    @Autowired
+    private CatalogoServicosService catalogoServicosService;
+
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int tamanhoLote;
+
+    public ResultadoImportacao importarClientes(List<ClienteImportado> clientes) {
+        long inicio = System.nanoTime();
+        for (int i = 0; i < clientes.size(); i++) {
+            ClienteImportado importado = clientes.get(i);
+            clienteService.salvarCliente(new Cliente(importado.nomeCompleto(), importado.email()));
+            finalizarBloco(i);
+        }
+        entityManager.flush();
+        return ResultadoImportacao.de("clientes", clientes.size(), inicio);
+    }
+
+    public ResultadoImportacao importarTiposServico(List<TipoServicoImportado> tiposServico) {
+        long inicio = System.nanoTime();
+        for (int i = 0; i < tiposServico.size(); i++) {
+            TipoServicoImportado importado = tiposServico.get(i);
+            TipoServico tipoServico = new TipoServico(importado.nome(), importado.descricao(), importado.preco(),
+                importado.duracaoMinutos());
+            if (importado.ativo() != null) {
+                tipoServico.setAtivo(importado.ativo());
+            }
+            tipoServicoRepository.save(tipoServico);
+            finalizarBloco(i);
+        }
+        entityManager.flush();
+        catalogoServicosService.recarregar();
+        versaoRecursosService.alterado(VersaoRecursosService.Recurso.SERVICOS);
+        return ResultadoImportacao.de("tiposServico", tiposServico.size(), inicio);
+    }
+
+    public ResultadoImportacao importarAgendamentos(List<AgendamentoImportado> agendamentos) {
+        long inicio = System.nanoTime();
+
+        // Referências carregadas uma única vez para toda a importação
+        Map<Long, Barbeiro> barbeiros = porId(barbeiroRepository.findAllById(
+            agendamentos.stream().map(AgendamentoImportado::barbeiroId).distinct().toList()), Barbeiro::getId);
+        Map<Long, TipoServico> servicos = porId(tipoServicoRepository.findAllById(
+            agendamentos.stream().flatMap(a -> a.servicoIds().stream()).distinct().toList()), TipoServico::getId);
+        Map<String, Cliente> clientes = new HashMap<>();
+        clienteRepository.findByEmailIn(agendamentos.stream().map(AgendamentoImportado::emailCliente).distinct().toList())
+            .forEach(c -> clientes.putIfAbsent(chaveCliente(c.getEmail(), c.getNomeCompleto()), c));
+
+        for (int i = 0; i < agendamentos.size(); i++) {
+            AgendamentoImportado importado = agendamentos.get(i);
+            int linha = i + 1;
+
+            Barbeiro barbeiro = barbeiros.get(importado.barbeiroId());
+            if (barbeiro == null) {
+                throw new IllegalArgumentException("Barbeiro não encontrado (linha " + linha + ")");
+            }
+
+            List<TipoServico> servicosAgendamento = importado.servicoIds().stream()
+                .map(servicos::get)
+                .toList();
+            if (servicosAgendamento.isEmpty() || servicosAgendamento.contains(null)) {
+                throw new IllegalArgumentException("Serviço inválido (linha " + linha + ")");
+            }
+
+            if (importado.dataHorario() == null) {
+                throw new IllegalArgumentException("Data/hora é obrigatória (linha " + linha + ")");
+            }
+
+            Cliente cliente = clientes.computeIfAbsent(
+                chaveCliente(importado.emailCliente(), importado.nomeCliente()),
+                chave -> clienteService.salvarCliente(new Cliente(importado.nomeCliente(), importado.emailCliente())));
+
+            double valorTotal = importado.valorTotal() != null
+                ? importado.valorTotal()
+                : servicosAgendamento.stream().mapToDouble(TipoServico::getPreco).sum();
+
+            Agendamento agendamento = new Agendamento(cliente, barbeiro, servicosAgendamento,
+                importado.dataHorario(), valorTotal);
+            agendamento.setStatus(importado.status() != null ? importado.status() : StatusAgendamento.CONCLUIDO);
+            agendamento.setObservacoes(importado.observacoes());
+
+            // Pendentes e confirmados ocupam a agenda: mesma trava e mesma conferência da marcação,
+            // que também enxerga as linhas anteriores desta importação
+            if ((agendamento.isPendente() || agendamento.isConfirmado()) && !agendamentoService.travarSeLivre(
+                    barbeiro.getId(), importado.dataHorario(), agendamento.getDuracaoTotal(), null)) {
+                throw new HorarioIndisponivelException("Barbeiro não está disponível neste horário (linha " + linha + ")");
+            }
+
+            agendamentoRepository.save(agendamento);
+            if (agendamento.isPendente() || agendamento.isConfirmado()) {
+                indiceAgendaService.registrar(agendamento);
+                lembreteService.registrar(agendamento);
+            }
+            finalizarBloco(i);
+        }
+        entityManager.flush();
+        barbeiros.keySet().forEach(versaoRecursosService::agendaAlterada);
+        return ResultadoImportacao.de("agendamentos", agendamentos.size(), inicio);
+    }
+
+    // Ao fechar um bloco, envia o batch e solta as entidades já gravadas
+    private void finalizarBloco(int indice) {
+        if ((indice + 1) % tamanhoLote == 0) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    private String chaveCliente(String email, String nome) {
+        return email + "|" + nome;
+    }
+
+    private <T> Map<Long, T> porId(List<T> entidades, Function<T, Long> id) {
+        return entidades.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+}
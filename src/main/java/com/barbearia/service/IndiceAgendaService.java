@@ -0,0 +1,248 @@
+package com.barbearia.service;
+
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.StatusAgendamento;
+import com.barbearia.repository.AgendamentoRepository;
+import com.barbearia.repository.TravaAgendaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Índice em memória dos horários ocupados de cada barbeiro.
+ * Cada agenda é carregada do banco na primeira consulta e depois mantida
+ * pelas operações de criar, confirmar, cancelar e reagendar.
+ * Marcações concorrentes para o mesmo barbeiro e dia são serializadas por
+ * travas distribuídas em faixas; barbeiros e dias diferentes não competem.
+ * Com várias instâncias o índice serve apenas para rejeitar cedo: a decisão
+ * final é do banco, sob a trava de {@link TravaAgendaRepository}.
+ */
+@Service
+public class IndiceAgendaService {
+
+    // Agendamentos que começaram antes desta janela não afetam novas marcações
+    private static final long JANELA_HISTORICO_HORAS = 24;
+
+    static final List<StatusAgendamento> STATUS_ATIVOS =
+        List.of(StatusAgendamento.PENDENTE, StatusAgendamento.CONFIRMADO);
+
+    @Autowired
+    private AgendamentoRepository agendamentoRepository;
+
+    @Autowired
+    private TravaAgendaRepository travaAgendaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+
+    private final Map<Long, AgendaBarbeiro> agendas = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] travas;
+
+    @Value("${barbearia.agenda.espera-trava-ms:5000}")
+    private long esperaTravaMs;
+
+    public IndiceAgendaService(@Value("${barbearia.agenda.faixas-trava:1024}") int faixas) {
+        this.travas = new ReentrantLock[faixas];
+        for (int i = 0; i < faixas; i++) {
+            travas[i] = new ReentrantLock();
+        }
+    }
+
+    // Trava os dias tocados pelo intervalo até o fim da transação corrente, depois que o índice já foi atualizado
+    public void bloquear(Long barbeiroId, LocalDateTime inicio, LocalDateTime fim) {
+        List<ReentrantLock> adquiridas = new ArrayList<>();
+        try {
+            for (int faixa : faixasDo(barbeiroId, inicio, fim)) {
+                ReentrantLock trava = travas[faixa];
+                if (!trava.tryLock(esperaTravaMs, TimeUnit.MILLISECONDS)) {
+                    throw new HorarioIndisponivelException("Agenda do barbeiro ocupada, tente novamente");
+                }
+                adquiridas.add(trava);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            liberar(adquiridas);
+            throw new IllegalStateException("Marcação interrompida", e);
+        } catch (RuntimeException e) {
+            liberar(adquiridas);
+            throw e;
+        }
+
+        Transacoes.aoTerminar(() -> liberar(adquiridas));
+
+        // Entre instâncias: a trava do banco é liberada pelo próprio commit ou rollback
+        for (LocalDate dia = inicio.toLocalDate(); !dia.isAfter(fim.toLocalDate()); dia = dia.plusDays(1)) {
+            travaAgendaRepository.travar(barbeiroId, dia);
+        }
+    }
+
+    public boolean isDisponivel(Long barbeiroId, LocalDateTime inicio, int duracaoMinutos) {
+        return isDisponivel(barbeiroId, inicio, duracaoMinutos, null);
+    }
+
+    public boolean isDisponivel(Long barbeiroId, LocalDateTime inicio, int duracaoMinutos, Long ignorarAgendamentoId) {
+        return agendaDo(barbeiroId).isLivre(inicio, inicio.plusMinutes(duracaoMinutos), ignorarAgendamentoId);
+    }
+
+    public List<Intervalo> intervalosEntre(Long barbeiroId, LocalDateTime inicio, LocalDateTime fim) {
+        return agendaDo(barbeiroId).intervalosEntre(inicio, fim);
+    }
+
+    // Reflete o estado atual do agendamento no índice e na versão da agenda assim que a transação for confirmada
+    public void registrar(Agendamento agendamento) {
+        Long barbeiroId = agendamento.getBarbeiro().getId();
+        versaoRecursosService.agendaAlterada(barbeiroId);
+        Intervalo intervalo = new Intervalo(
+            agendamento.getId(),
+            agendamento.getDataHorario(),
+            agendamento.getDataHorario().plusMinutes(agendamento.getDuracaoTotal()),
+            agendamento.getStatus()
+        );
+
+        Transacoes.aposCommit(() -> {
+            AgendaBarbeiro agenda = agendaDo(barbeiroId);
+            if (STATUS_ATIVOS.contains(intervalo.status())) {
+                agenda.salvar(intervalo);
+            } else {
+                agenda.remover(intervalo.agendamentoId());
+            }
+        });
+    }
+
+    // Faixas em ordem crescente e sem repetição para evitar deadlock entre marcações que cruzam a meia-noite
+    private TreeSet<Integer> faixasDo(Long barbeiroId, LocalDateTime inicio, LocalDateTime fim) {
+        TreeSet<Integer> faixas = new TreeSet<>();
+        for (LocalDate dia = inicio.toLocalDate(); !dia.isAfter(fim.toLocalDate()); dia = dia.plusDays(1)) {
+            int hash = 31 * barbeiroId.hashCode() + dia.hashCode();
+            faixas.add(Math.floorMod(hash ^ (hash >>> 16), travas.length));
+        }
+        return faixas;
+    }
+
+    private void liberar(List<ReentrantLock> adquiridas) {
+        for (int i = adquiridas.size() - 1; i >= 0; i--) {
+            adquiridas.get(i).unlock();
+        }
+    }
+
+    // Carrega fora do mapa: a consulta não pode segurar a entrada enquanto outras threads esperam nela
+    private AgendaBarbeiro agendaDo(Long barbeiroId) {
+        AgendaBarbeiro agenda = agendas.get(barbeiroId);
+        if (agenda == null) {
+            AgendaBarbeiro carregada = carregarAgenda(barbeiroId);
+            agenda = agendas.putIfAbsent(barbeiroId, carregada);
+            if (agenda == null) {
+                agenda = carregada;
+            }
+        }
+        return agenda;
+    }
+
+    // O índice vive até o próximo restart, então a carga nunca pode vir de uma réplica atrasada
+    private AgendaBarbeiro carregarAgenda(Long barbeiroId) {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return lerAgenda(barbeiroId);
+        }
+        TransactionTemplate primario = new TransactionTemplate(transactionManager);
+        primario.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return primario.execute(status -> lerAgenda(barbeiroId));
+    }
+
+    private AgendaBarbeiro lerAgenda(Long barbeiroId) {
+        AgendaBarbeiro agenda = new AgendaBarbeiro();
+        LocalDateTime desde = LocalDateTime.now().minusHours(JANELA_HISTORICO_HORAS);
+
+        for (Object[] linha : agendamentoRepository.findIntervalosByBarbeiro(barbeiroId, STATUS_ATIVOS, desde)) {
+            LocalDateTime inicio = (LocalDateTime) linha[1];
+            int duracao = linha[2] != null ? ((Number) linha[2]).intValue() : 30;
+            agenda.salvar(new Intervalo((Long) linha[0], inicio, inicio.plusMinutes(duracao),
+                (StatusAgendamento) linha[3]));
+        }
+        return agenda;
+    }
+
+    public record Intervalo(Long agendamentoId, LocalDateTime inicio, LocalDateTime fim, StatusAgendamento status) {
+
+        boolean sobrepoe(LocalDateTime outroInicio, LocalDateTime outroFim) {
+            return outroInicio.isBefore(fim) && outroFim.isAfter(inicio);
+        }
+    }
+
+    // Intervalos ordenados pelo início; a maior duração limita quantos precisam ser examinados
+    static class AgendaBarbeiro {
+
+        private static final Comparator<Intervalo> ORDEM = Comparator
+            .comparing(Intervalo::inicio)
+            .thenComparing(Intervalo::agendamentoId);
+
+        private final NavigableSet<Intervalo> porInicio = new TreeSet<>(ORDEM);
+        private final Map<Long, Intervalo> porId = new HashMap<>();
+        private long maiorDuracaoMinutos;
+
+        synchronized boolean isLivre(LocalDateTime inicio, LocalDateTime fim, Long ignorarAgendamentoId) {
+            for (Intervalo existente : candidatos(inicio, fim)) {
+                if (!existente.agendamentoId().equals(ignorarAgendamentoId) && existente.sobrepoe(inicio, fim)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        synchronized List<Intervalo> intervalosEntre(LocalDateTime inicio, LocalDateTime fim) {
+            return candidatos(inicio, fim).stream()
+                .filter(i -> i.sobrepoe(inicio, fim))
+                .toList();
+        }
+
+        synchronized void salvar(Intervalo intervalo) {
+            remover(intervalo.agendamentoId());
+            porInicio.add(intervalo);
+            porId.put(intervalo.agendamentoId(), intervalo);
+            maiorDuracaoMinutos = Math.max(maiorDuracaoMinutos,
+                Duration.between(intervalo.inicio(), intervalo.fim()).toMinutes());
+            descartarAntigos();
+        }
+
+        synchronized void remover(Long agendamentoId) {
+            Intervalo anterior = porId.remove(agendamentoId);
+            if (anterior != null) {
+                porInicio.remove(anterior);
+            }
+        }
+
+        private NavigableSet<Intervalo> candidatos(LocalDateTime inicio, LocalDateTime fim) {
+            Intervalo de = new Intervalo(Long.MIN_VALUE, inicio.minusMinutes(maiorDuracaoMinutos), null, null);
+            Intervalo ate = new Intervalo(Long.MIN_VALUE, fim, null, null);
+            return porInicio.subSet(de, true, ate, false);
+        }
+
+        private void descartarAntigos() {
+            LocalDateTime limite = LocalDateTime.now().minusHours(JANELA_HISTORICO_HORAS);
+            while (!porInicio.isEmpty() && porInicio.first().fim().isBefore(limite)) {
+                porId.remove(porInicio.pollFirst().agendamentoId());
+            }
+        }
+    }
+}
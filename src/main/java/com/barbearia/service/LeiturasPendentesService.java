@@ -0,0 +1,153 @@
+package com.barbearia.service;
+
+import com.barbearia.repository.MensagemRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Confirmações de leitura acumuladas em memória por barbeiro e gravadas em lote (write-behind).
+ * Cada clique só entra no buffer; a cada intervalo, ou quando o buffer enche, um único UPDATE
+ * grava todas. Uma queda perde no máximo as leituras do último intervalo.
+ * Quem confere o banco e mexe no buffer de um barbeiro o faz sob a guarda dele, mantida até
+ * o fim da transação: assim uma mesma mensagem nunca é descontada duas vezes do contador.
+ */
+@Service
+public class LeiturasPendentesService {
+
+    @Autowired
+    private MensagemRepository mensagemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${barbearia.leituras.limite-buffer:500}")
+    private int limiteBuffer;
+
+    @Value("${barbearia.leituras.tamanho-lote:1000}")
+    private int tamanhoLote;
+
+    private final Map<Long, Set<Long>> pendentes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final Map<Long, ReentrantLock> guardas = new ConcurrentHashMap<>();
+
+    public void bloquear(Long barbeiroId) {
+        ReentrantLock guarda = guardas.computeIfAbsent(barbeiroId, id -> new ReentrantLock());
+        guarda.lock();
+        Transacoes.aoTerminar(guarda::unlock);
+    }
+
+    // Exige a guarda do barbeiro. Devolve quantas mensagens vão entrar (as que já estão no buffer não
+    // contam de novo); elas só entram depois do commit, então uma transação desfeita não grava leitura
+    public int registrar(Long barbeiroId, Collection<Long> mensagemIds) {
+        Set<Long> doBarbeiro = pendentes.getOrDefault(barbeiroId, Set.of());
+        List<Long> novas = mensagemIds.stream().distinct().filter(id -> !doBarbeiro.contains(id)).toList();
+        if (novas.isEmpty()) {
+            return 0;
+        }
+        Transacoes.aposCommit(() -> {
+            Set<Long> buffer = pendentes.computeIfAbsent(barbeiroId, id -> ConcurrentHashMap.newKeySet());
+            int adicionadas = 0;
+            for (Long mensagemId : novas) {
+                if (buffer.add(mensagemId)) {
+                    adicionadas++;
+                }
+            }
+            // Já depois do commit: a gravação precisa de uma transação nova
+            if (total.addAndGet(adicionadas) >= limiteBuffer) {
+                descarregar(new ArrayList<>(pendentes.keySet()), TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            }
+        });
+        return novas.size();
+    }
+
+    // Leituras deste nó que o banco ainda não viu; as consultas as tratam como lidas
+    public Set<Long> pendentes(Long barbeiroId) {
+        Set<Long> doBarbeiro = pendentes.get(barbeiroId);
+        return doBarbeiro != null ? Set.copyOf(doBarbeiro) : Set.of();
+    }
+
+    public int quantidade(Long barbeiroId) {
+        Set<Long> doBarbeiro = pendentes.get(barbeiroId);
+        return doBarbeiro != null ? doBarbeiro.size() : 0;
+    }
+
+    // Usado antes de operações em conjunto no banco, para que elas não contem de novo o que está no buffer
+    public void descarregar(Long barbeiroId) {
+        descarregar(List.of(barbeiroId), TransactionDefinition.PROPAGATION_REQUIRED);
+    }
+
+    @Scheduled(fixedDelayString = "${barbearia.leituras.intervalo-ms:2000}")
+    public void descarregarTodas() {
+        descarregar(new ArrayList<>(pendentes.keySet()), TransactionDefinition.PROPAGATION_REQUIRED);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        descarregarTodas();
+    }
+
+    // Os ids só saem do buffer depois do commit. Barbeiro com a guarda ocupada fica para a próxima
+    // rodada; quem já a tem (marcarTodasComoLidas, registro que estourou o limite) passa direto
+    private void descarregar(List<Long> barbeiroIds, int propagacao) {
+        if (barbeiroIds.stream().allMatch(id -> pendentes.getOrDefault(id, Set.of()).isEmpty())) {
+            return;
+        }
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(propagacao);
+        template.executeWithoutResult(status -> {
+            Map<Long, List<Long>> lote = new HashMap<>();
+            List<Long> mensagemIds = new ArrayList<>();
+            for (Long barbeiroId : barbeiroIds) {
+                Set<Long> doBarbeiro = pendentes.get(barbeiroId);
+                if (doBarbeiro == null || doBarbeiro.isEmpty()) {
+                    continue;
+                }
+                ReentrantLock guarda = guardas.computeIfAbsent(barbeiroId, id -> new ReentrantLock());
+                if (!guarda.tryLock()) {
+                    continue;
+                }
+                Transacoes.aoTerminar(guarda::unlock);
+                List<Long> copia = new ArrayList<>(doBarbeiro);
+                lote.put(barbeiroId, copia);
+                mensagemIds.addAll(copia);
+            }
+            if (mensagemIds.isEmpty()) {
+                return;
+            }
+
+            for (int inicio = 0; inicio < mensagemIds.size(); inicio += tamanhoLote) {
+                mensagemRepository.marcarComoLidas(
+                    mensagemIds.subList(inicio, Math.min(inicio + tamanhoLote, mensagemIds.size())));
+            }
+            Transacoes.aposCommit(() -> lote.forEach((barbeiroId, gravadas) -> {
+                Set<Long> doBarbeiro = pendentes.get(barbeiroId);
+                int removidas = 0;
+                for (Long mensagemId : gravadas) {
+                    if (doBarbeiro.remove(mensagemId)) {
+                        removidas++;
+                    }
+                }
+                total.addAndGet(-removidas);
+            }));
+        });
+    }
+}
@@ -0,0 +1,215 @@
+package com.barbearia.service;
+
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.StatusAgendamento;
+import com.barbearia.model.TipoMensagem;
+import com.barbearia.repository.AgendamentoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lembretes de atendimento em uma roda de tempo com um balde por minuto. A roda guarda só
+ * os lembretes que vencem dentro do horizonte; os demais ficam no banco e entram conforme
+ * o horizonte avança. O envio grava no agendamento o horário lembrado, então depois de um
+ * restart basta ler a janela à frente, sem repetir lembretes nem varrer a tabela inteira.
+ */
+@Service
+public class LembreteService {
+
+    @Autowired
+    private AgendamentoRepository agendamentoRepository;
+
+    @Autowired
+    private NotificacaoService notificacaoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${barbearia.lembretes.antecedencia-minutos:60}")
+    private long antecedenciaMinutos;
+
+    @Value("${barbearia.lembretes.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    private final long horizonteMinutos;
+
+    private final RodaTempo roda;
+
+    // Posição (dataHorario, id) até onde os agendamentos já foram lidos do banco
+    private LocalDateTime carregadoAte;
+
+    private Long carregadoAteId;
+
+    // A roda cobre o dobro do horizonte: o que um gancho não couber nela, a próxima carga ainda vai ler
+    public LembreteService(@Value("${barbearia.lembretes.horizonte-horas:6}") long horizonteHoras) {
+        this.horizonteMinutos = horizonteHoras * 60;
+        this.roda = new RodaTempo((int) (horizonteMinutos * 2), minuto(LocalDateTime.now()));
+    }
+
+    // Chamado junto com o índice de agenda sempre que status ou horário mudam
+    public void registrar(Agendamento agendamento) {
+        Long agendamentoId = agendamento.getId();
+        boolean pendente = agendamento.getStatus() == StatusAgendamento.CONFIRMADO
+            && !agendamento.getDataHorario().equals(agendamento.getLembreteEnviadoPara());
+        LocalDateTime disparo = agendamento.getDataHorario().minusMinutes(antecedenciaMinutos);
+
+        Transacoes.aposCommit(() -> {
+            if (pendente) {
+                roda.programar(agendamentoId, minuto(disparo));
+            } else {
+                roda.remover(agendamentoId);
+            }
+        });
+    }
+
+    // Avança a janela lida do banco em páginas; na primeira execução começa no instante atual
+    @Scheduled(fixedDelayString = "${barbearia.lembretes.intervalo-carga-ms:300000}")
+    public synchronized void carregar() {
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime ate = agora.plusMinutes(horizonteMinutos + antecedenciaMinutos);
+        if (carregadoAte == null) {
+            carregadoAte = agora;
+            carregadoAteId = 0L;
+        }
+
+        List<Object[]> pagina;
+        do {
+            LocalDateTime aposDataHorario = carregadoAte;
+            Long aposId = carregadoAteId;
+            pagina = primario().execute(status -> agendamentoRepository.findLembretesPendentes(
+                StatusAgendamento.CONFIRMADO, aposDataHorario, aposId, ate, PageRequest.of(0, tamanhoLote)));
+
+            for (Object[] linha : pagina) {
+                Long agendamentoId = (Long) linha[0];
+                LocalDateTime dataHorario = (LocalDateTime) linha[1];
+                roda.programar(agendamentoId, minuto(dataHorario.minusMinutes(antecedenciaMinutos)));
+                carregadoAte = dataHorario;
+                carregadoAteId = agendamentoId;
+            }
+        } while (pagina.size() == tamanhoLote);
+
+        carregadoAte = ate;
+        carregadoAteId = Long.MAX_VALUE;
+    }
+
+    @Scheduled(fixedDelayString = "${barbearia.lembretes.tick-ms:1000}")
+    public void girar() {
+        List<Long> vencidos = roda.girarAte(minuto(LocalDateTime.now()));
+        for (int inicio = 0; inicio < vencidos.size(); inicio += tamanhoLote) {
+            disparar(vencidos.subList(inicio, Math.min(inicio + tamanhoLote, vencidos.size())));
+        }
+    }
+
+    // Um lote por transação: trava as linhas, confere o estado atual e grava os eventos no outbox
+    private void disparar(List<Long> agendamentoIds) {
+        Map<Long, LocalDateTime> adiados = new HashMap<>();
+        try {
+            primario().executeWithoutResult(status -> {
+                LocalDateTime agora = LocalDateTime.now();
+                for (Agendamento agendamento : agendamentoRepository.reservarParaLembrete(
+                        agendamentoIds, StatusAgendamento.CONFIRMADO)) {
+                    LocalDateTime dataHorario = agendamento.getDataHorario();
+                    if (dataHorario.equals(agendamento.getLembreteEnviadoPara()) || !dataHorario.isAfter(agora)) {
+                        continue;
+                    }
+                    // Reagendado para mais tarde em outra instância: volta para a roda no novo minuto
+                    if (dataHorario.minusMinutes(antecedenciaMinutos).isAfter(agora)) {
+                        adiados.put(agendamento.getId(), dataHorario.minusMinutes(antecedenciaMinutos));
+                        continue;
+                    }
+                    agendamento.setLembreteEnviadoPara(dataHorario);
+                    notificacaoService.registrar(agendamento, TipoMensagem.LEMBRETE_AGENDAMENTO);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Lote inteiro volta para o próximo minuto; nada foi gravado
+            agendamentoIds.forEach(id -> roda.programar(id, minuto(LocalDateTime.now())));
+            return;
+        }
+        adiados.forEach((id, disparo) -> roda.programar(id, minuto(disparo)));
+    }
+
+    // Sempre no primário: uma réplica atrasada faria a carga pular agendamentos recém-confirmados
+    private TransactionTemplate primario() {
+        TransactionTemplate primario = new TransactionTemplate(transactionManager);
+        primario.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return primario;
+    }
+
+    private static long minuto(LocalDateTime momento) {
+        return Math.floorDiv(momento.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Roda de tempo de um nível: cada balde guarda os agendamentos de um minuto e o ponteiro
+     * só visita os baldes que venceram. Programar, remover e girar custam O(1) por lembrete.
+     */
+    static class RodaTempo {
+
+        private final List<Set<Long>> baldes;
+
+        private final Map<Long, Long> minutoPorAgendamento = new HashMap<>();
+
+        private long proximoMinuto;
+
+        RodaTempo(int tamanho, long minutoAtual) {
+            this.baldes = new ArrayList<>(tamanho);
+            for (int i = 0; i < tamanho; i++) {
+                baldes.add(new HashSet<>());
+            }
+            this.proximoMinuto = minutoAtual;
+        }
+
+        // Atrasados vão para o próximo balde; além do alcance da roda fica para a carga do banco
+        synchronized void programar(Long agendamentoId, long minuto) {
+            remover(agendamentoId);
+            long alvo = Math.max(minuto, proximoMinuto);
+            if (alvo < proximoMinuto + baldes.size()) {
+                balde(alvo).add(agendamentoId);
+                minutoPorAgendamento.put(agendamentoId, alvo);
+            }
+        }
+
+        synchronized void remover(Long agendamentoId) {
+            Long minuto = minutoPorAgendamento.remove(agendamentoId);
+            if (minuto != null) {
+                balde(minuto).remove(agendamentoId);
+            }
+        }
+
+        synchronized List<Long> girarAte(long minutoAtual) {
+            List<Long> vencidos = new ArrayList<>();
+            // Depois de uma pausa maior que a roda, uma volta completa já esvazia todos os baldes
+            proximoMinuto = Math.max(proximoMinuto, minutoAtual - baldes.size() + 1);
+            while (proximoMinuto <= minutoAtual) {
+                Set<Long> balde = balde(proximoMinuto);
+                for (Long agendamentoId : balde) {
+                    minutoPorAgendamento.remove(agendamentoId);
+                    vencidos.add(agendamentoId);
+                }
+                balde.clear();
+                proximoMinuto++;
+            }
+            return vencidos;
+        }
+
+        private Set<Long> balde(long minuto) {
+            return baldes.get((int) Math.floorMod(minuto, (long) baldes.size()));
+        }
+    }
+}
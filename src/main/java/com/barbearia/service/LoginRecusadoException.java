@@ -0,0 +1,25 @@
+package com.barbearia.service;
+
+public class LoginRecusadoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    // true: limite de tentativas (429); false: verificação de senhas saturada (503)
+    private final boolean limiteTentativas;
+
+    private final long segundosParaNovaTentativa;
+
+    public LoginRecusadoException(String message, boolean limiteTentativas, long segundosParaNovaTentativa) {
+        super(message);
+        this.limiteTentativas = limiteTentativas;
+        this.segundosParaNovaTentativa = segundosParaNovaTentativa;
+    }
+
+    public boolean isLimiteTentativas() {
+        return limiteTentativas;
+    }
+
+    public long getSegundosParaNovaTentativa() {
+        return segundosParaNovaTentativa;
+    }
+}
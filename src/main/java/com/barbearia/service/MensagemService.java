@@ -1,61 +1,137 @@
 package com.barbearia.service;
 
+import com.barbearia.dto.MensagemResumo;
+import com.barbearia.dto.PaginaMensagens;
 import com.barbearia.model.*;
 import com.barbearia.repository.MensagemRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class MensagemService {
     
+    private static final int LIMITE_MAXIMO_PAGINA = 200;
+    
     @Autowired
     private MensagemRepository mensagemRepository;
     
+    @Autowired
+    private EventosBarbeiroService eventosBarbeiroService;
+    
+    @Autowired
+    private ContadorNaoLidasService contadorNaoLidasService;
+    
+    @Autowired
+    private LeiturasPendentesService leiturasPendentesService;
+    
     public Mensagem criarMensagemAgendamento(Agendamento agendamento, TipoMensagem tipo) {
+        return criarMensagemAgendamento(agendamento, tipo, null);
+    }
+    
+    public Mensagem criarMensagemAgendamento(Agendamento agendamento, TipoMensagem tipo, Long eventoId) {
         String conteudo = gerarConteudoMensagem(agendamento, tipo);
         
         Mensagem mensagem = new Mensagem(conteudo, agendamento, agendamento.getBarbeiro(), tipo);
-        return mensagemRepository.save(mensagem);
+        mensagem.setEventoId(eventoId);
+        mensagem = mensagemRepository.save(mensagem);
+        if (mensagem.getDestinatario() != null) {
+            naoLidasAlteradas(mensagem.getDestinatario().getId(), 1);
+        }
+        return mensagem;
+    }
+    
+    // Eventos do outbox que já viraram mensagem; usados para descartar reentregas
+    @Transactional(readOnly = true)
+    public Set<Long> eventosJaGerados(Collection<Long> eventoIds) {
+        return new HashSet<>(mensagemRepository.findEventoIdsGerados(eventoIds));
     }
     
-    public List<Mensagem> buscarMensagensNaoLidas(Barbeiro barbeiro) {
-        return mensagemRepository.findMensagensNaoLidasByDestinatario(barbeiro);
+    @Transactional(readOnly = true)
+    public PaginaMensagens buscarCaixaEntrada(Long barbeiroId, boolean apenasNaoLidas, String cursor, int limite) {
+        if (limite <= 0 || limite > LIMITE_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + LIMITE_MAXIMO_PAGINA);
+        }
+        
+        CursorPaginacao.Posicao posicao = CursorPaginacao.decodificar(cursor);
+        // Leituras ainda no buffer já valem para quem consulta este nó
+        Set<Long> lidasPendentes = leiturasPendentesService.pendentes(barbeiroId);
+        // Busca um registro a mais só para saber se existe próxima página
+        List<MensagemResumo> itens = mensagemRepository.findCaixaEntrada(barbeiroId, apenasNaoLidas,
+                lidasPendentes.isEmpty() ? List.of(-1L) : lidasPendentes,
+                posicao != null ? posicao.data() : null, posicao != null ? posicao.id() : null,
+                PageRequest.of(0, limite + 1))
+            .stream()
+            .map(m -> lidasPendentes.contains(m.id()) ? m.comoLida() : m)
+            .toList();
+        String proximoCursor = null;
+        if (itens.size() > limite) {
+            itens = itens.subList(0, limite);
+            MensagemResumo ultima = itens.get(limite - 1);
+            proximoCursor = CursorPaginacao.codificar(ultima.dataEnvio(), ultima.id());
+        }
+        return new PaginaMensagens(itens, proximoCursor);
     }
     
-    public List<Mensagem> buscarMensagensPorBarbeiro(Barbeiro barbeiro) {
-        return mensagemRepository.findByDestinatario(barbeiro);
+    // Leitura da memória; não precisa de transação
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long contarMensagensNaoLidas(Long barbeiroId) {
+        return contadorNaoLidasService.naoLidas(barbeiroId);
     }
     
-    public Long contarMensagensNaoLidas(Barbeiro barbeiro) {
-        return mensagemRepository.countMensagensNaoLidasByDestinatario(barbeiro);
+    // Leituras vão para o buffer; mensagem de outro barbeiro é tratada como inexistente.
+    // A guarda vem antes da consulta: com ela, marcarTodasComoLidas e a gravação do buffer não se intercalam
+    public boolean marcarComoLida(Long mensagemId, Long barbeiroId) {
+        leiturasPendentesService.bloquear(barbeiroId);
+        List<Object[]> leitura = mensagemRepository.findLeitura(mensagemId);
+        if (leitura.isEmpty() || !barbeiroId.equals(leitura.get(0)[0])) {
+            return false;
+        }
+        if (!Boolean.TRUE.equals(leitura.get(0)[1])) {
+            naoLidasAlteradas(barbeiroId, -leiturasPendentesService.registrar(barbeiroId, List.of(mensagemId)));
+        }
+        return true;
     }
     
-    public boolean marcarComoLida(Long mensagemId) {
-        Optional<Mensagem> mensagem = mensagemRepository.findById(mensagemId);
-        
-        if (mensagem.isPresent()) {
-            mensagem.get().marcarComoLida();
-            mensagemRepository.save(mensagem.get());
-            return true;
+    public int marcarComoLidas(Long barbeiroId, Collection<Long> mensagemIds) {
+        if (mensagemIds == null || mensagemIds.isEmpty()) {
+            throw new IllegalArgumentException("Nenhuma mensagem informada");
+        }
+        if (mensagemIds.size() > LIMITE_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("Máximo de " + LIMITE_MAXIMO_PAGINA + " mensagens por vez");
         }
-        return false;
+        leiturasPendentesService.bloquear(barbeiroId);
+        List<Long> naoLidas = mensagemRepository.findNaoLidasEntre(barbeiroId, new HashSet<>(mensagemIds));
+        int registradas = leiturasPendentesService.registrar(barbeiroId, naoLidas);
+        naoLidasAlteradas(barbeiroId, -registradas);
+        return registradas;
     }
     
-    public void marcarTodasComoLidas(Barbeiro barbeiro) {
-        List<Mensagem> mensagensNaoLidas = mensagemRepository.findMensagensNaoLidasByDestinatario(barbeiro);
-        
-        mensagensNaoLidas.forEach(m -> {
-            m.marcarComoLida();
-            mensagemRepository.save(m);
-        });
+    public int marcarTodasComoLidas(Long barbeiroId) {
+        // O que está no buffer já foi descontado; grava antes para o UPDATE não contar de novo.
+        // A guarda fica até o commit, para nenhuma leitura avulsa entrar entre a gravação e o UPDATE
+        leiturasPendentesService.bloquear(barbeiroId);
+        leiturasPendentesService.descarregar(barbeiroId);
+        int atualizadas = mensagemRepository.marcarTodasComoLidas(barbeiroId);
+        naoLidasAlteradas(barbeiroId, -atualizadas);
+        return atualizadas;
+    }
+    
+    private void naoLidasAlteradas(Long barbeiroId, long delta) {
+        contadorNaoLidasService.alterar(barbeiroId, delta);
+        eventosBarbeiroService.naoLidasAlteradas(barbeiroId, delta);
     }
     
+    @Transactional(readOnly = true)
     public List<Mensagem> buscarMensagensPorAgendamento(Agendamento agendamento) {
         return mensagemRepository.findByAgendamento(agendamento);
     }
@@ -0,0 +1,31 @@
+package com.barbearia.service;
+
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.EventoAgendamento;
+import com.barbearia.model.TipoMensagem;
+import com.barbearia.repository.EventoAgendamentoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Lado de escrita do outbox: dentro da transação da marcação grava apenas o evento,
+ * e o texto e a mensagem ficam para o {@link DespachanteNotificacoes}.
+ */
+@Service
+@Transactional
+public class NotificacaoService {
+
+    @Autowired
+    private EventoAgendamentoRepository eventoAgendamentoRepository;
+
+    @Autowired
+    private DespachanteNotificacoes despachanteNotificacoes;
+
+    public void registrar(Agendamento agendamento, TipoMensagem tipo) {
+        eventoAgendamentoRepository.save(new EventoAgendamento(agendamento.getId(), tipo));
+
+        // Acorda o despachante assim que o evento estiver visível, sem esperar o próximo ciclo
+        Transacoes.aposCommit(despachanteNotificacoes::acordar);
+    }
+}
@@ -0,0 +1,76 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.PainelBarbeiro;
+import com.barbearia.model.Barbeiro;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Painel do barbeiro em uma só ida ao servidor: perfil, agenda da semana, pendentes e
+ * contagem de não lidas. O barbeiro é carregado uma vez e as partes rodam em paralelo num
+ * pool limitado; cada parte abre a própria transação curta e a thread da requisição não
+ * toca no banco.
+ */
+@Service
+public class PainelBarbeiroService {
+
+    @Autowired
+    private BarbeiroService barbeiroService;
+
+    @Autowired
+    private MensagemService mensagemService;
+
+    private final ThreadPoolExecutor executor;
+
+    // Fila cheia recusa em vez de rodar na thread da requisição: com o pool saturado, empilhar
+    // consultas nas threads do servidor só espalharia a espera para as demais requisições
+    public PainelBarbeiroService(@Value("${barbearia.painel.executores:4}") int executores,
+                                 @Value("${barbearia.painel.capacidade-fila:400}") int capacidadeFila) {
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(executores, executores, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacidadeFila), tarefa -> {
+                Thread thread = new Thread(tarefa, "painel-barbeiro-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Vazio quando o barbeiro não existe; as demais partes já terão rodado, mas são leituras baratas.
+    // Pool saturado completa com RejectedExecutionException
+    public CompletableFuture<Optional<PainelBarbeiro>> carregar(Long barbeiroId, LocalDateTime inicioSemana) {
+        try {
+            CompletableFuture<Optional<Barbeiro>> barbeiro =
+                CompletableFuture.supplyAsync(() -> barbeiroService.buscarPorId(barbeiroId), executor);
+            CompletableFuture<List<AgendamentoResumo>> agenda =
+                CompletableFuture.supplyAsync(() -> barbeiroService.verAgendaSemanal(barbeiroId, inicioSemana), executor);
+            CompletableFuture<List<AgendamentoResumo>> pendentes =
+                CompletableFuture.supplyAsync(() -> barbeiroService.verAgendamentosPendentes(barbeiroId), executor);
+            CompletableFuture<Long> naoLidas =
+                CompletableFuture.supplyAsync(() -> mensagemService.contarMensagensNaoLidas(barbeiroId), executor);
+
+            return CompletableFuture.allOf(barbeiro, agenda, pendentes, naoLidas)
+                .thenApply(v -> barbeiro.join().map(b -> new PainelBarbeiro(PainelBarbeiro.Perfil.de(b), inicioSemana,
+                    agenda.join(), pendentes.join(), naoLidas.join())));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+}
@@ -1,10 +1,15 @@
 package com.barbearia.service;
 
+import com.barbearia.dto.ServicoAtivo;
 import com.barbearia.model.TipoServico;
 import com.barbearia.repository.TipoServicoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,15 +21,46 @@ public class TipoServicoService {
     @Autowired
     private TipoServicoRepository tipoServicoRepository;
     
-    public List<TipoServico> listarAtivos() {
-        return tipoServicoRepository.findAllAtivos();
+    @Autowired
+    private CatalogoServicosService catalogoServicosService;
+    
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+    
+    @Autowired
+    private CoalescenciaService coalescenciaService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${barbearia.coalescencia.espera-servicos-ms:2000}")
+    private long esperaMs;
+    
+    // Sem transação própria: só a chamada que executa a consulta abre uma, as demais esperam sem conexão.
+    // A versão entra na chave para que ninguém receba, com o ETag novo, uma leitura anterior à alteração
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ServicoAtivo> listarAtivos() {
+        String versao = versaoRecursosService.versao(VersaoRecursosService.Recurso.SERVICOS).etag();
+        return coalescenciaService.executar("servicos-ativos", versao, esperaMs, () ->
+            leitura().execute(status ->
+                tipoServicoRepository.findAllAtivos().stream().map(ServicoAtivo::de).toList()));
     }
     
+    @Transactional(readOnly = true)
     public Optional<TipoServico> buscarPorId(Long id) {
         return tipoServicoRepository.findById(id);
     }
     
     public TipoServico salvarTipoServico(TipoServico tipoServico) {
-        return tipoServicoRepository.save(tipoServico);
+        TipoServico salvo = tipoServicoRepository.save(tipoServico);
+        catalogoServicosService.atualizar(salvo);
+        versaoRecursosService.alterado(VersaoRecursosService.Recurso.SERVICOS);
+        return salvo;
+    }
+    
+    private TransactionTemplate leitura() {
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        return leitura;
     }
 }
@@ -0,0 +1,136 @@
+package com.barbearia.service;
+
+import com.barbearia.model.Barbeiro;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emissão e validação dos tokens de sessão do barbeiro. O token de acesso é curto e carrega
+ * tudo o que a autorização precisa, então validar não consulta o banco nem o BCrypt; o de
+ * renovação é longo e só serve para obter um novo par. Qualquer instância com o mesmo
+ * segredo valida os tokens das outras.
+ */
+@Service
+public class TokenService {
+
+    private static final String CLAIM_TIPO = "tipo";
+    private static final String CLAIM_LOGIN = "login";
+    private static final String TIPO_ACESSO = "acesso";
+    private static final String TIPO_RENOVACAO = "renovacao";
+
+    private final SecretKey chave;
+
+    private final JwtParser parser;
+
+    private final long validadeAcessoMs;
+
+    private final long validadeRenovacaoMs;
+
+    private final int limiteCache;
+
+    // Claims já verificadas por token: a assinatura só é conferida na primeira vez que o token aparece
+    private final Map<String, Sessao> sessoes = new ConcurrentHashMap<>();
+
+    // Sem segredo configurado, cada instância gera o seu; com várias instâncias, configure o mesmo em todas
+    public TokenService(@Value("${barbearia.jwt.segredo:}") String segredo,
+                        @Value("${barbearia.jwt.validade-acesso-minutos:15}") long validadeAcessoMinutos,
+                        @Value("${barbearia.jwt.validade-renovacao-dias:7}") long validadeRenovacaoDias,
+                        @Value("${barbearia.jwt.limite-cache:10000}") int limiteCache) {
+        this.chave = segredo.isBlank()
+            ? Keys.secretKeyFor(SignatureAlgorithm.HS256)
+            : Keys.hmacShaKeyFor(Decoders.BASE64.decode(segredo));
+        this.parser = Jwts.parserBuilder().setSigningKey(chave).build();
+        this.validadeAcessoMs = validadeAcessoMinutos * 60_000;
+        this.validadeRenovacaoMs = validadeRenovacaoDias * 86_400_000;
+        this.limiteCache = limiteCache;
+    }
+
+    public Tokens emitir(Barbeiro barbeiro) {
+        long agora = System.currentTimeMillis();
+        long expiraEm = agora + validadeAcessoMs;
+        return new Tokens(
+            assinar(barbeiro, TIPO_ACESSO, agora, expiraEm),
+            assinar(barbeiro, TIPO_RENOVACAO, agora, agora + validadeRenovacaoMs),
+            expiraEm
+        );
+    }
+
+    public Optional<Sessao> validarAcesso(String token) {
+        long agora = System.currentTimeMillis();
+        Sessao sessao = sessoes.get(token);
+        if (sessao == null) {
+            Optional<Claims> claims = ler(token, TIPO_ACESSO);
+            if (claims.isEmpty()) {
+                return Optional.empty();
+            }
+            sessao = Sessao.de(claims.get());
+            guardar(token, sessao, agora);
+        }
+        return sessao.expiraEm() > agora ? Optional.of(sessao) : Optional.empty();
+    }
+
+    // Renovação é rara: não passa pelo cache, e quem chama ainda confere se o barbeiro segue ativo
+    public Optional<Sessao> validarRenovacao(String token) {
+        return ler(token, TIPO_RENOVACAO).map(Sessao::de);
+    }
+
+    private Optional<Claims> ler(String token, String tipo) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            return tipo.equals(claims.get(CLAIM_TIPO, String.class)) ? Optional.of(claims) : Optional.empty();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private String assinar(Barbeiro barbeiro, String tipo, long emitidoEm, long expiraEm) {
+        return Jwts.builder()
+            .setSubject(String.valueOf(barbeiro.getId()))
+            .setId(UUID.randomUUID().toString())
+            .claim(CLAIM_LOGIN, barbeiro.getLogin())
+            .claim(CLAIM_TIPO, tipo)
+            .setIssuedAt(new Date(emitidoEm))
+            .setExpiration(new Date(expiraEm))
+            .signWith(chave, SignatureAlgorithm.HS256)
+            .compact();
+    }
+
+    // Tamanho limitado: ao passar do limite descarta os vencidos e, se não bastar, começa de novo
+    private void guardar(String token, Sessao sessao, long agora) {
+        if (sessoes.size() >= limiteCache) {
+            sessoes.values().removeIf(s -> s.expiraEm() <= agora);
+            if (sessoes.size() >= limiteCache) {
+                sessoes.clear();
+            }
+        }
+        sessoes.put(token, sessao);
+    }
+
+    public record Tokens(String accessToken, String refreshToken, long expiraEm) {
+    }
+
+    public record Sessao(Long barbeiroId, String login, long expiraEm) {
+
+        static Sessao de(Claims claims) {
+            return new Sessao(Long.valueOf(claims.getSubject()), claims.get(CLAIM_LOGIN, String.class),
+                claims.getExpiration().getTime());
+        }
+    }
+}
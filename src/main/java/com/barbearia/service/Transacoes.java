@@ -0,0 +1,39 @@
+package com.barbearia.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Ações presas ao fim da transação corrente; fora de transação rodam na hora
+final class Transacoes {
+
+    private Transacoes() {
+    }
+
+    // Só depois do commit: uma transação desfeita não deixa rastro em memória
+    static void aposCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+
+    // Depois do commit ou do rollback, para liberar o que a transação segurou
+    static void aoTerminar(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.barbearia.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Verificação de senhas (BCrypt) fora das threads do servidor, em um pool pequeno com fila
+ * limitada. Antes de entrar na fila, cada tentativa gasta uma ficha do balde do login e uma
+ * do balde do IP; sem ficha ou com a fila cheia a recusa é imediata. Uma rajada de logins
+ * fica presa no pool e não ocupa as threads que atendem os agendamentos.
+ */
+@Service
+public class VerificacaoSenhaService {
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+    // Login inexistente também paga um BCrypt, para o tempo de resposta não revelar quais logins existem
+    private final String hashFicticio = passwordEncoder.encode("barbearia");
+
+    private final ThreadPoolExecutor executor;
+
+    private final long prazoFilaMs;
+
+    private final int limiteBaldes;
+
+    private final Map<String, Balde> baldesLogin = new ConcurrentHashMap<>();
+
+    private final Map<String, Balde> baldesIp = new ConcurrentHashMap<>();
+
+    private final ConfiguracaoBalde porLogin;
+
+    private final ConfiguracaoBalde porIp;
+
+    private final LongAdder recusadasLogin = new LongAdder();
+
+    private final LongAdder recusadasIp = new LongAdder();
+
+    private final LongAdder recusadasSaturacao = new LongAdder();
+
+    private final Medidor esperaFila = new Medidor();
+
+    private final Medidor verificacao = new Medidor();
+
+    // Zero verificadores usa metade dos processadores: o BCrypt nunca toma toda a CPU dos agendamentos
+    public VerificacaoSenhaService(@Value("${barbearia.login.verificadores:0}") int verificadores,
+                                   @Value("${barbearia.login.capacidade-fila:50}") int capacidadeFila,
+                                   @Value("${barbearia.login.prazo-fila-ms:2000}") long prazoFilaMs,
+                                   @Value("${barbearia.login.tentativas-por-login:5}") int tentativasPorLogin,
+                                   @Value("${barbearia.login.reposicao-login-segundos:60}") long reposicaoLoginSegundos,
+                                   @Value("${barbearia.login.tentativas-por-ip:20}") int tentativasPorIp,
+                                   @Value("${barbearia.login.reposicao-ip-segundos:3}") long reposicaoIpSegundos,
+                                   @Value("${barbearia.login.limite-baldes:100000}") int limiteBaldes) {
+        if (verificadores <= 0) {
+            verificadores = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(verificadores, verificadores, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacidadeFila), tarefa -> {
+                Thread thread = new Thread(tarefa, "verificacao-senha-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.prazoFilaMs = prazoFilaMs;
+        this.porLogin = new ConfiguracaoBalde(tentativasPorLogin, reposicaoLoginSegundos * 1000);
+        this.porIp = new ConfiguracaoBalde(tentativasPorIp, reposicaoIpSegundos * 1000);
+        this.limiteBaldes = limiteBaldes;
+    }
+
+    // Barato e síncrono: roda antes de qualquer consulta ao banco
+    public void admitir(String login, String origem) {
+        long agora = System.currentTimeMillis();
+        long esperaIp = consumir(baldesIp, origem, porIp, agora);
+        if (esperaIp > 0) {
+            recusadasIp.increment();
+            throw new LoginRecusadoException("Muitas tentativas de login, aguarde", true, segundos(esperaIp));
+        }
+        long esperaLogin = consumir(baldesLogin, chaveLogin(login), porLogin, agora);
+        if (esperaLogin > 0) {
+            recusadasLogin.increment();
+            throw new LoginRecusadoException("Muitas tentativas para este login, aguarde", true, segundos(esperaLogin));
+        }
+    }
+
+    // A busca também roda no pool: a thread do servidor não toca no banco e não prende conexão
+    // enquanto espera na fila. Sem registro compara com o hash fictício; login aceito devolve as fichas
+    public <T> CompletableFuture<Verificacao<T>> verificar(String login, String origem, String senha,
+                                                           Supplier<Optional<T>> busca, Function<T, String> hashDe) {
+        long enfileiradaEm = System.nanoTime();
+        CompletableFuture<Verificacao<T>> resultado = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long inicio = System.nanoTime();
+                esperaFila.registrar(inicio - enfileiradaEm);
+                // Quem esperou demais na fila provavelmente já desistiu: não gasta CPU com ele
+                if (TimeUnit.NANOSECONDS.toMillis(inicio - enfileiradaEm) > prazoFilaMs) {
+                    recusadasSaturacao.increment();
+                    resultado.completeExceptionally(saturado());
+                    return;
+                }
+                try {
+                    Optional<T> encontrado = busca.get();
+                    long inicioVerificacao = System.nanoTime();
+                    boolean correta = passwordEncoder.matches(senha, encontrado.map(hashDe).orElse(hashFicticio))
+                        && encontrado.isPresent();
+                    verificacao.registrar(System.nanoTime() - inicioVerificacao);
+                    if (correta) {
+                        devolver(login, origem);
+                    }
+                    resultado.complete(new Verificacao<>(encontrado, correta));
+                } catch (RuntimeException e) {
+                    resultado.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            recusadasSaturacao.increment();
+            resultado.completeExceptionally(saturado());
+        }
+        return resultado;
+    }
+
+    public Map<String, Object> resumo() {
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("verificadores", executor.getMaximumPoolSize());
+        resumo.put("ativas", executor.getActiveCount());
+        resumo.put("fila", executor.getQueue().size());
+        resumo.put("capacidadeFila", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        resumo.put("concluidas", executor.getCompletedTaskCount());
+        resumo.put("recusadas", Map.of(
+            "porLogin", recusadasLogin.sum(),
+            "porIp", recusadasIp.sum(),
+            "saturacao", recusadasSaturacao.sum()
+        ));
+        resumo.put("esperaFila", esperaFila.resumo());
+        resumo.put("verificacao", verificacao.resumo());
+        resumo.put("baldes", Map.of("logins", baldesLogin.size(), "ips", baldesIp.size()));
+        return resumo;
+    }
+
+    // Balde cheio é igual a balde inexistente: pode sair do mapa sem mudar nenhuma decisão
+    @Scheduled(fixedDelayString = "${barbearia.login.intervalo-limpeza-ms:60000}")
+    public void limparBaldes() {
+        long agora = System.currentTimeMillis();
+        baldesLogin.values().removeIf(balde -> balde.cheio(agora));
+        baldesIp.values().removeIf(balde -> balde.cheio(agora));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    // Com o mapa no limite mesmo após a limpeza, a chave nova não é rastreada e só a fila limitada protege
+    private long consumir(Map<String, Balde> baldes, String chave, ConfiguracaoBalde configuracao, long agora) {
+        if (chave == null) {
+            return 0;
+        }
+        Balde balde = baldes.get(chave);
+        if (balde == null) {
+            if (baldes.size() >= limiteBaldes) {
+                baldes.values().removeIf(b -> b.cheio(agora));
+                if (baldes.size() >= limiteBaldes) {
+                    return 0;
+                }
+            }
+            balde = baldes.computeIfAbsent(chave, c -> new Balde(configuracao, agora));
+        }
+        return balde.consumir(agora);
+    }
+
+    private void devolver(String login, String origem) {
+        long agora = System.currentTimeMillis();
+        Balde doLogin = login != null ? baldesLogin.get(chaveLogin(login)) : null;
+        if (doLogin != null) {
+            doLogin.devolver(agora);
+        }
+        Balde doIp = origem != null ? baldesIp.get(origem) : null;
+        if (doIp != null) {
+            doIp.devolver(agora);
+        }
+    }
+
+    private static String chaveLogin(String login) {
+        return login != null ? login.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static long segundos(long ms) {
+        return Math.max(1, (ms + 999) / 1000);
+    }
+
+    private static LoginRecusadoException saturado() {
+        return new LoginRecusadoException("Serviço de login ocupado, tente novamente em instantes", false, 1);
+    }
+
+    public record Verificacao<T>(Optional<T> encontrado, boolean senhaCorreta) {
+    }
+
+    record ConfiguracaoBalde(int capacidade, long msPorFicha) {
+    }
+
+    /**
+     * Balde de fichas: começa cheio, perde uma por tentativa e recupera uma a cada
+     * {@code msPorFicha}. A reposição é calculada na hora do uso, sem tarefa em segundo plano.
+     */
+    static class Balde {
+
+        private final ConfiguracaoBalde configuracao;
+
+        private double fichas;
+
+        private long atualizadoEm;
+
+        Balde(ConfiguracaoBalde configuracao, long agora) {
+            this.configuracao = configuracao;
+            this.fichas = configuracao.capacidade();
+            this.atualizadoEm = agora;
+        }
+
+        // 0 quando havia ficha; senão, quantos ms faltam para a próxima
+        synchronized long consumir(long agora) {
+            repor(agora);
+            if (fichas >= 1) {
+                fichas -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - fichas) * configuracao.msPorFicha()));
+        }
+
+        synchronized void devolver(long agora) {
+            repor(agora);
+            fichas = Math.min(configuracao.capacidade(), fichas + 1);
+        }
+
+        synchronized boolean cheio(long agora) {
+            repor(agora);
+            return fichas >= configuracao.capacidade();
+        }
+
+        private void repor(long agora) {
+            if (agora > atualizadoEm) {
+                fichas = Math.min(configuracao.capacidade(),
+                    fichas + (double) (agora - atualizadoEm) / configuracao.msPorFicha());
+                atualizadoEm = agora;
+            }
+        }
+    }
+
+    // Contagem, média e máximo de uma duração, sem guardar as amostras
+    static class Medidor {
+
+        private final LongAdder quantidade = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final AtomicLong maximoNanos = new AtomicLong();
+
+        void registrar(long nanos) {
+            quantidade.increment();
+            totalNanos.add(nanos);
+            maximoNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        Map<String, Object> resumo() {
+            long n = quantidade.sum();
+            return Map.of(
+                "quantidade", n,
+                "mediaMs", n == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / n,
+                "maximoMs", maximoNanos.get() / 1_000_000.0
+            );
+        }
+    }
+}
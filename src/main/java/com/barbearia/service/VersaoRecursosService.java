@@ -0,0 +1,210 @@
+package com.barbearia.service;
+
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.TipoServico;
+import com.barbearia.model.VersaoRecurso;
+import com.barbearia.repository.BarbeiroRepository;
+import com.barbearia.repository.TipoServicoRepository;
+import com.barbearia.repository.VersaoRecursoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Versões dos recursos lidos com mais frequência, gravadas no banco para valerem entre instâncias.
+ * Cada escrita incrementa a versão do que ela altera na própria transação; os controllers montam
+ * ETag e Last-Modified a partir delas e respondem 304 sem executar a consulta quando nada mudou.
+ * A versão é lida antes do corpo e da mesma fonte (a réplica, quando configurada): o corpo que sai
+ * nunca é mais antigo que o ETag que o acompanha.
+ */
+@Service
+public class VersaoRecursosService {
+
+    public enum Recurso {
+        SERVICOS, BARBEIROS, CLIENTES, AGENDAMENTOS
+    }
+
+    @Autowired
+    private VersaoRecursoRepository versaoRecursoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CatalogoServicosService catalogoServicosService;
+
+    // Última versão vista por esta instância: se outra instância alterou o recurso, os caches locais dele saem
+    private final Map<Recurso, Long> vistas = new ConcurrentHashMap<>();
+
+    // Ponto de partida das versões vistas: os caches desta instância começam a ser preenchidos agora
+    @PostConstruct
+    void registrarVistas() {
+        List<String> comCache = List.of(Recurso.SERVICOS.name(), Recurso.BARBEIROS.name());
+        for (Object[] linha : versaoRecursoRepository.findVersoes(comCache, false)) {
+            vistas.put(Recurso.valueOf((String) linha[0]), (Long) linha[1]);
+        }
+    }
+
+    public void alterado(Recurso recurso) {
+        registrar(gravacao -> gravacao.recursos.add(recurso));
+    }
+
+    public void agendaAlterada(Long barbeiroId) {
+        registrar(gravacao -> gravacao.agendas.add(barbeiroId));
+    }
+
+    @Transactional(readOnly = true)
+    public Versao versao(Recurso... dependencias) {
+        return ler(List.of(dependencias), null);
+    }
+
+    // A agenda também mostra nomes de clientes, barbeiros e serviços
+    @Transactional(readOnly = true)
+    public Versao versaoAgenda(Long barbeiroId) {
+        return ler(List.of(Recurso.CLIENTES, Recurso.BARBEIROS, Recurso.SERVICOS), barbeiroId);
+    }
+
+    private Versao ler(List<Recurso> recursos, Long barbeiroId) {
+        List<String> chaves = new ArrayList<>();
+        for (Recurso recurso : recursos) {
+            chaves.add(recurso.name());
+        }
+        if (barbeiroId != null) {
+            chaves.add(chaveAgenda(barbeiroId));
+        }
+        boolean todasAgendas = recursos.contains(Recurso.AGENDAMENTOS);
+
+        Map<String, Long> versoes = new HashMap<>();
+        long somaAgendas = 0;
+        long ultimaAlteracao = 0;
+        for (Object[] linha : versaoRecursoRepository.findVersoes(chaves, todasAgendas)) {
+            String chave = (String) linha[0];
+            long versao = (Long) linha[1];
+            ultimaAlteracao = Math.max(ultimaAlteracao,
+                ((LocalDateTime) linha[2]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            if (todasAgendas && chave.startsWith(VersaoRecursoRepository.PREFIXO_AGENDA)) {
+                somaAgendas += versao;
+            } else {
+                versoes.put(chave, versao);
+            }
+        }
+
+        // Cada agenda só cresce, então a soma muda a cada alteração em qualquer uma delas
+        StringJoiner etag = new StringJoiner("-");
+        for (Recurso recurso : recursos) {
+            long versao = recurso == Recurso.AGENDAMENTOS ? somaAgendas : versoes.getOrDefault(recurso.name(), 0L);
+            observar(recurso, versao);
+            etag.add(recurso.name().toLowerCase() + "." + versao);
+        }
+        if (barbeiroId != null) {
+            etag.add("agenda" + barbeiroId + "." + versoes.getOrDefault(chaveAgenda(barbeiroId), 0L));
+        }
+        return new Versao(etag.toString(), ultimaAlteracao);
+    }
+
+    // A consulta que vem a seguir já não pode sair de um cache anterior à versão que acabou de ser lida
+    private void observar(Recurso recurso, long versao) {
+        Long anterior = vistas.get(recurso);
+        if (anterior != null && anterior >= versao) {
+            return;
+        }
+        vistas.merge(recurso, versao, Math::max);
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        if (recurso == Recurso.SERVICOS) {
+            cache.evictEntityData(TipoServico.class);
+            cache.evictQueryRegion(TipoServicoRepository.REGIAO_CONSULTAS);
+            catalogoServicosService.recarregar();
+        } else if (recurso == Recurso.BARBEIROS) {
+            cache.evictEntityData(Barbeiro.class);
+            cache.evictQueryRegion(BarbeiroRepository.REGIAO_CONSULTAS);
+        }
+    }
+
+    // Acumula as alterações da transação e grava tudo de uma vez no fim dela
+    private void registrar(Consumer<Gravacao> alteracao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Gravacao gravacao = new Gravacao();
+            alteracao.accept(gravacao);
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> gravacao.gravar());
+            return;
+        }
+        for (TransactionSynchronization sincronizacao : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacao instanceof Gravacao gravacao && gravacao.servico() == this) {
+                alteracao.accept(gravacao);
+                return;
+            }
+        }
+        Gravacao gravacao = new Gravacao();
+        alteracao.accept(gravacao);
+        TransactionSynchronizationManager.registerSynchronization(gravacao);
+    }
+
+    private static String chaveAgenda(Long barbeiroId) {
+        return VersaoRecursoRepository.PREFIXO_AGENDA + barbeiroId;
+    }
+
+    /**
+     * Incremento feito no beforeCommit, ainda dentro da transação: a versão fica visível junto com
+     * os dados que ela descreve. As linhas são travadas só no fim e sempre na mesma ordem (recursos,
+     * depois agendas por id), então transações que alteram vários barbeiros não se travam entre si.
+     */
+    private class Gravacao implements TransactionSynchronization {
+
+        private final Set<Recurso> recursos = EnumSet.noneOf(Recurso.class);
+
+        private final Set<Long> agendas = new TreeSet<>();
+
+        VersaoRecursosService servico() {
+            return VersaoRecursosService.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            gravar();
+        }
+
+        void gravar() {
+            LocalDateTime agora = LocalDateTime.now();
+            List<String> chaves = new ArrayList<>();
+            for (Recurso recurso : recursos) {
+                chaves.add(recurso.name());
+            }
+            for (Long barbeiroId : agendas) {
+                chaves.add(chaveAgenda(barbeiroId));
+            }
+            // Barbeiro criado nesta transação ainda não tem a linha da agenda
+            for (String chave : chaves) {
+                if (versaoRecursoRepository.incrementar(chave, agora) == 0) {
+                    versaoRecursoRepository.save(new VersaoRecurso(chave, 1L, agora));
+                }
+            }
+        }
+    }
+
+    public record Versao(String etag, long ultimaAlteracao) {
+    }
+}
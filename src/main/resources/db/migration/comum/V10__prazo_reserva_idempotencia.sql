@@ -0,0 +1,3 @@
+-- Até quando a instância que reservou a chave responde por ela; vencido o prazo sem status, outra
+-- instância pode assumir. Linhas antigas sem prazo contam como vencidas
+ALTER TABLE chaves_idempotencia ADD COLUMN reservada_ate TIMESTAMP;
@@ -0,0 +1,14 @@
+-- Versões dos recursos servidos com ETag, compartilhadas entre instâncias. Cada escrita incrementa
+-- a linha do que alterou na própria transação; a agenda tem uma linha por barbeiro ("AGENDA:<id>")
+-- para que marcações de barbeiros diferentes não disputem a mesma linha
+CREATE TABLE versoes_recursos (
+    chave VARCHAR(40) PRIMARY KEY,
+    versao BIGINT NOT NULL,
+    alterado_em TIMESTAMP NOT NULL
+);
+
+INSERT INTO versoes_recursos (chave, versao, alterado_em) VALUES ('SERVICOS', 0, CURRENT_TIMESTAMP);
+INSERT INTO versoes_recursos (chave, versao, alterado_em) VALUES ('BARBEIROS', 0, CURRENT_TIMESTAMP);
+INSERT INTO versoes_recursos (chave, versao, alterado_em) VALUES ('CLIENTES', 0, CURRENT_TIMESTAMP);
+INSERT INTO versoes_recursos (chave, versao, alterado_em)
+    SELECT CONCAT('AGENDA:', id), 0, CURRENT_TIMESTAMP FROM barbeiros;
@@ -0,0 +1,61 @@
+-- Esquema inicial, compatível com H2 e PostgreSQL
+
+CREATE TABLE tipos_servico (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome VARCHAR(255) NOT NULL,
+    descricao VARCHAR(255),
+    preco DOUBLE PRECISION NOT NULL,
+    duracao_minutos INTEGER,
+    ativo BOOLEAN
+);
+
+CREATE TABLE barbeiros (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome VARCHAR(255) NOT NULL,
+    login VARCHAR(255) NOT NULL,
+    senha VARCHAR(255) NOT NULL,
+    ativo BOOLEAN,
+    data_criacao TIMESTAMP,
+    CONSTRAINT uk_barbeiros_login UNIQUE (login)
+);
+
+CREATE TABLE clientes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome_completo VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    data_criacao TIMESTAMP
+);
+
+CREATE TABLE agendamentos (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cliente_id BIGINT NOT NULL,
+    barbeiro_id BIGINT NOT NULL,
+    data_horario TIMESTAMP NOT NULL,
+    data_fim TIMESTAMP,
+    valor_total DOUBLE PRECISION NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    data_criacao TIMESTAMP,
+    data_resposta TIMESTAMP,
+    observacoes VARCHAR(255),
+    CONSTRAINT fk_agendamentos_cliente FOREIGN KEY (cliente_id) REFERENCES clientes (id),
+    CONSTRAINT fk_agendamentos_barbeiro FOREIGN KEY (barbeiro_id) REFERENCES barbeiros (id)
+);
+
+CREATE TABLE agendamento_servicos (
+    agendamento_id BIGINT NOT NULL,
+    servico_id BIGINT NOT NULL,
+    CONSTRAINT fk_agendamento_servicos_agendamento FOREIGN KEY (agendamento_id) REFERENCES agendamentos (id),
+    CONSTRAINT fk_agendamento_servicos_servico FOREIGN KEY (servico_id) REFERENCES tipos_servico (id)
+);
+
+CREATE TABLE mensagens (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    conteudo VARCHAR(1000) NOT NULL,
+    data_envio TIMESTAMP NOT NULL,
+    agendamento_id BIGINT,
+    destinatario_id BIGINT,
+    lida BOOLEAN,
+    tipo VARCHAR(255),
+    CONSTRAINT fk_mensagens_agendamento FOREIGN KEY (agendamento_id) REFERENCES agendamentos (id),
+    CONSTRAINT fk_mensagens_destinatario FOREIGN KEY (destinatario_id) REFERENCES barbeiros (id)
+);
@@ -0,0 +1,13 @@
+-- Agendamentos gravados antes de data_fim existir: o fim vem da soma das durações dos serviços,
+-- 30 minutos por serviço sem duração e 30 no total quando não há serviço, como em Agendamento.getDuracaoTotal().
+-- Sem o fim, tsrange(data_horario, data_fim) fica aberto e a restrição de sobreposição bloqueia o barbeiro para sempre
+UPDATE agendamentos a
+SET data_fim = a.data_horario + COALESCE((
+        SELECT SUM(COALESCE(ts.duracao_minutos, 30))
+        FROM agendamento_servicos ags
+        JOIN tipos_servico ts ON ts.id = ags.servico_id
+        WHERE ags.agendamento_id = a.id
+    ), 30) * INTERVAL '1' MINUTE
+WHERE a.data_fim IS NULL;
+
+ALTER TABLE agendamentos ALTER COLUMN data_fim SET NOT NULL;
@@ -0,0 +1,28 @@
+-- Índices pensados para as consultas declaradas nos repositórios
+
+-- Agenda do barbeiro por período, verificação de sobreposição (data_horario < fim AND data_fim > inicio)
+-- e carga do índice em memória: barbeiro_id fixo, faixa em data_horario, demais colunas lidas do próprio índice
+CREATE INDEX idx_agendamentos_barbeiro_horario ON agendamentos (barbeiro_id, data_horario, data_fim, status);
+
+-- Pendentes/confirmados de um barbeiro, ordenados por horário
+CREATE INDEX idx_agendamentos_barbeiro_status ON agendamentos (barbeiro_id, status, data_horario);
+
+-- Listagens por status e paginação por chave (data_horario, id)
+CREATE INDEX idx_agendamentos_status_horario ON agendamentos (status, data_horario, id);
+CREATE INDEX idx_agendamentos_horario_id ON agendamentos (data_horario, id);
+
+CREATE INDEX idx_agendamentos_cliente ON agendamentos (cliente_id);
+
+CREATE INDEX idx_agendamento_servicos_agendamento ON agendamento_servicos (agendamento_id, servico_id);
+CREATE INDEX idx_agendamento_servicos_servico ON agendamento_servicos (servico_id);
+
+-- findByEmail e findByEmailAndNome
+CREATE INDEX idx_clientes_email_nome ON clientes (email, nome_completo);
+
+-- Caixa de entrada e contagem de não lidas por barbeiro
+CREATE INDEX idx_mensagens_destinatario_lida ON mensagens (destinatario_id, lida, data_envio);
+CREATE INDEX idx_mensagens_destinatario_envio ON mensagens (destinatario_id, data_envio);
+CREATE INDEX idx_mensagens_agendamento ON mensagens (agendamento_id);
+
+-- Barbeiros ativos (login já é coberto pela restrição única)
+CREATE INDEX idx_barbeiros_ativo ON barbeiros (ativo);
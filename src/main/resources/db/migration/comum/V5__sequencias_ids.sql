@@ -0,0 +1,6 @@
+-- Sequências com incremento 50 (otimizador "pooled" do Hibernate) para permitir inserts em lote
+CREATE SEQUENCE tipos_servico_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE barbeiros_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE clientes_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE agendamentos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE mensagens_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,21 @@
+-- Outbox de notificações: a marcação grava só o evento; o despachante gera as mensagens depois do commit
+CREATE SEQUENCE eventos_agendamento_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE eventos_agendamento (
+    id BIGINT PRIMARY KEY,
+    agendamento_id BIGINT NOT NULL,
+    tipo VARCHAR(40) NOT NULL,
+    data_criacao TIMESTAMP NOT NULL,
+    proxima_tentativa TIMESTAMP NOT NULL,
+    tentativas INT NOT NULL DEFAULT 0,
+    processado_em TIMESTAMP,
+    ultimo_erro VARCHAR(500),
+    CONSTRAINT fk_eventos_agendamento_agendamento FOREIGN KEY (agendamento_id) REFERENCES agendamentos (id)
+);
+
+-- Fila do despachante: só eventos ainda não processados, na ordem em que vencem
+CREATE INDEX idx_eventos_pendentes ON eventos_agendamento (processado_em, proxima_tentativa, id);
+
+-- Cada evento gera no máximo uma mensagem, mesmo que seja entregue mais de uma vez
+ALTER TABLE mensagens ADD COLUMN evento_id BIGINT;
+CREATE UNIQUE INDEX uk_mensagens_evento ON mensagens (evento_id);
@@ -0,0 +1,2 @@
+-- Horário para o qual o lembrete já foi enviado; um reagendamento volta a deixar o agendamento elegível
+ALTER TABLE agendamentos ADD COLUMN lembrete_enviado_para TIMESTAMP;
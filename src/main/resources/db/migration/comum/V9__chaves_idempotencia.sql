@@ -0,0 +1,13 @@
+-- Respostas de requisições com Idempotency-Key, compartilhadas entre instâncias quando habilitado.
+-- Linha sem status: a requisição original ainda está em andamento em alguma instância
+CREATE TABLE chaves_idempotencia (
+    chave VARCHAR(200) PRIMARY KEY,
+    impressao VARCHAR(64) NOT NULL,
+    status INT,
+    tipo_conteudo VARCHAR(100),
+    corpo VARCHAR(8000),
+    criado_em TIMESTAMP NOT NULL,
+    expira_em TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_chaves_idempotencia_expira ON chaves_idempotencia (expira_em);
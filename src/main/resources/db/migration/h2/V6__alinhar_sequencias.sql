@@ -0,0 +1,6 @@
+-- No otimizador "pooled" o valor da sequência é o topo do bloco; o primeiro id gerado será MAX(id) + 1
+ALTER SEQUENCE tipos_servico_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM tipos_servico);
+ALTER SEQUENCE barbeiros_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM barbeiros);
+ALTER SEQUENCE clientes_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM clientes);
+ALTER SEQUENCE agendamentos_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM agendamentos);
+ALTER SEQUENCE mensagens_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM mensagens);
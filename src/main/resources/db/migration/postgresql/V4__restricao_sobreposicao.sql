@@ -0,0 +1,7 @@
+-- Garante no banco que agendamentos ativos do mesmo barbeiro não se sobrepõem,
+-- mesmo com várias instâncias da aplicação gravando ao mesmo tempo
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE agendamentos ADD CONSTRAINT ex_agendamentos_sem_sobreposicao
+    EXCLUDE USING gist (barbeiro_id WITH =, tsrange(data_horario, data_fim) WITH &&)
+    WHERE (status IN ('PENDENTE', 'CONFIRMADO'));
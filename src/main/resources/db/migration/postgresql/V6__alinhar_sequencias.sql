@@ -0,0 +1,6 @@
+-- No otimizador "pooled" o valor da sequência é o topo do bloco; o primeiro id gerado será MAX(id) + 1
+SELECT setval('tipos_servico_seq', COALESCE((SELECT MAX(id) FROM tipos_servico), 0) + 50, false);
+SELECT setval('barbeiros_seq', COALESCE((SELECT MAX(id) FROM barbeiros), 0) + 50, false);
+SELECT setval('clientes_seq', COALESCE((SELECT MAX(id) FROM clientes), 0) + 50, false);
+SELECT setval('agendamentos_seq', COALESCE((SELECT MAX(id) FROM agendamentos), 0) + 50, false);
+SELECT setval('mensagens_seq', COALESCE((SELECT MAX(id) FROM mensagens), 0) + 50, false);
@@ -0,0 +1,134 @@
+package com.barbearia.config;
+
+import com.barbearia.model.TipoServico;
+import com.barbearia.repository.TipoServicoRepository;
+import com.barbearia.service.CatalogoServicosService;
+import com.barbearia.service.IndiceAgendaService;
+import com.barbearia.service.TipoServicoService;
+import com.barbearia.service.VersaoRecursosService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Primário e réplica em dois bancos H2 separados. A réplica recebe as mesmas migrações e,
+ * só nela, um serviço, um agendamento e uma versão do catálogo marcadores: quem enxerga o
+ * marcador leu da réplica.
+ * Sobe com servidor de verdade porque o "classpath:" do ehcache.xml é resolvido pelo Tomcat.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=" + RoteamentoDataSourceTest.URL_PRIMARIO,
+    "barbearia.datasource.replica.url=" + RoteamentoDataSourceTest.URL_REPLICA,
+    "barbearia.datasource.replica.username=sa",
+    "barbearia.datasource.replica.password=",
+    "spring.jpa.show-sql=false"
+})
+class RoteamentoDataSourceTest {
+
+    static final String URL_PRIMARIO = "jdbc:h2:mem:roteamento_primario;DB_CLOSE_DELAY=-1";
+    static final String URL_REPLICA = "jdbc:h2:mem:roteamento_replica;DB_CLOSE_DELAY=-1";
+
+    private static final long MARCADOR = 900L;
+    private static final long BARBEIRO_ID = 3L;
+    private static final LocalDateTime HORARIO_MARCADOR = LocalDate.now().plusDays(1).atTime(10, 0);
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TipoServicoRepository tipoServicoRepository;
+
+    @Autowired
+    private CatalogoServicosService catalogoServicosService;
+
+    @Autowired
+    private IndiceAgendaService indiceAgendaService;
+
+    @Autowired
+    private TipoServicoService tipoServicoService;
+
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+
+    // Roda antes do contexto subir: o Flyway da aplicação só migra o primário
+    @BeforeAll
+    static void prepararReplica() throws Exception {
+        Flyway.configure()
+            .dataSource(URL_REPLICA, "sa", "")
+            .locations("classpath:db/migration/comum", "classpath:db/migration/h2")
+            .load()
+            .migrate();
+        try (Connection conexao = DriverManager.getConnection(URL_REPLICA, "sa", "");
+             Statement statement = conexao.createStatement()) {
+            statement.executeUpdate("INSERT INTO tipos_servico (id, nome, descricao, preco, duracao_minutos, ativo) "
+                + "VALUES (" + MARCADOR + ", 'Só na réplica', null, 1.0, 30, true)");
+            statement.executeUpdate("INSERT INTO clientes (id, nome_completo, email, data_criacao) "
+                + "VALUES (" + MARCADOR + ", 'Cliente Réplica', 'replica@teste.com', CURRENT_TIMESTAMP)");
+            statement.executeUpdate("INSERT INTO agendamentos (id, cliente_id, barbeiro_id, data_horario, data_fim, "
+                + "valor_total, status, data_criacao) VALUES (" + MARCADOR + ", " + MARCADOR + ", " + BARBEIRO_ID
+                + ", TIMESTAMP '" + HORARIO_MARCADOR + "', TIMESTAMP '" + HORARIO_MARCADOR.plusMinutes(30)
+                + "', 1.0, 'CONFIRMADO', CURRENT_TIMESTAMP)");
+            statement.executeUpdate("UPDATE versoes_recursos SET versao = " + MARCADOR + " WHERE chave = 'SERVICOS'");
+        }
+    }
+
+    @Test
+    void transacaoSomenteLeituraLeDaReplica() {
+        List<TipoServico> servicos = somenteLeitura().execute(status -> tipoServicoRepository.findAll());
+        assertTrue(contemMarcador(servicos));
+    }
+
+    @Test
+    void transacaoDeEscritaLeDoPrimario() {
+        List<TipoServico> servicos = new TransactionTemplate(transactionManager)
+            .execute(status -> tipoServicoRepository.findAll());
+        assertFalse(contemMarcador(servicos));
+    }
+
+    @Test
+    void indiceDaAgendaCarregaDoPrimarioMesmoDentroDeLeitura() {
+        // Na réplica o horário está ocupado pelo agendamento marcador; no primário está livre
+        boolean disponivel = somenteLeitura().execute(status ->
+            indiceAgendaService.isDisponivel(BARBEIRO_ID, HORARIO_MARCADOR, 30));
+        assertTrue(disponivel);
+    }
+
+    @Test
+    void catalogoRecarregaDoPrimarioMesmoDentroDeLeitura() {
+        somenteLeitura().executeWithoutResult(status -> catalogoServicosService.recarregar());
+        assertThrows(IllegalArgumentException.class, () -> catalogoServicosService.orcar(List.of(MARCADOR)));
+    }
+
+    // Versão e corpo vêm da mesma réplica, a versão antes: o corpo nunca é mais antigo que o ETag
+    @Test
+    void listagemComEtagLeVersaoECorpoDaReplica() {
+        assertTrue(versaoRecursosService.versao(VersaoRecursosService.Recurso.SERVICOS).etag()
+            .contains("servicos." + MARCADOR));
+        assertTrue(tipoServicoService.listarAtivos().stream().anyMatch(servico -> servico.id() == MARCADOR));
+    }
+
+    private TransactionTemplate somenteLeitura() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static boolean contemMarcador(List<TipoServico> servicos) {
+        return servicos.stream().anyMatch(servico -> servico.getId() == MARCADOR);
+    }
+}
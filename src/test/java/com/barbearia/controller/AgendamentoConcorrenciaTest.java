@@ -0,0 +1,194 @@
+package com.barbearia.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vários clientes disputando os horários dos barbeiros ao mesmo tempo. Só marcações que se
+ * sobrepõem disputam a mesma trava (barbeiro e dia); as demais seguem em paralelo.
+ * Os barbeiros das disputas grandes são gravados direto no banco, com a linha de versão da agenda
+ * que o cadastro pela API criaria, e cada disputa usa dias só dela.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AgendamentoConcorrenciaTest {
+
+    private static final int REQUISICOES = 20;
+
+    private static final int CLIENTES_SIMULTANEOS = 32;
+
+    // Barbeiros 100 a 107
+    private static final long PRIMEIRO_BARBEIRO = 100;
+    private static final int BARBEIROS = 8;
+
+    // Corte Masculino (30 minutos) começando a cada 15 minutos: vizinhos sempre se sobrepõem
+    private static final long CORTE = 1L;
+    private static final int INICIOS_POR_DIA = 48;
+
+    private static final String SOBREPOSICOES = "SELECT COUNT(*) FROM agendamentos a JOIN agendamentos b "
+        + "ON a.barbeiro_id = b.barbeiro_id AND a.id < b.id "
+        + "AND a.data_horario < b.data_fim AND b.data_horario < a.data_fim "
+        + "WHERE a.status IN ('PENDENTE', 'CONFIRMADO') AND b.status IN ('PENDENTE', 'CONFIRMADO')";
+
+    private final AtomicInteger clientes = new AtomicInteger();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void cadastrarBarbeiros() {
+        for (long id = PRIMEIRO_BARBEIRO; id < PRIMEIRO_BARBEIRO + BARBEIROS; id++) {
+            jdbcTemplate.update("INSERT INTO barbeiros (id, nome, login, senha, ativo, data_criacao) "
+                + "VALUES (?, ?, ?, 'x', true, CURRENT_TIMESTAMP)", id, "Barbeiro " + id, "concorrencia" + id);
+            jdbcTemplate.update("INSERT INTO versoes_recursos (chave, versao, alterado_em) "
+                + "VALUES (?, 0, CURRENT_TIMESTAMP)", "AGENDA:" + id);
+        }
+    }
+
+    @Test
+    void apenasUmaMarcacaoConcorrenteNoMesmoHorarioEhAceita() throws Exception {
+        LocalDateTime horario = LocalDate.now().plusDays(3).atTime(14, 0);
+        List<Map<String, Object>> pedidos = new ArrayList<>();
+        for (int i = 0; i < REQUISICOES; i++) {
+            pedidos.add(pedido(2L, horario));
+        }
+
+        Resultado resultado = disparar(pedidos, REQUISICOES);
+
+        assertEquals(1, resultado.aceitas());
+        assertEquals(REQUISICOES - 1, resultado.recusadas());
+    }
+
+    @Test
+    void milharesDeMarcacoesEmBarbeirosEDiasDiferentesNuncaSeSobrepoem() throws Exception {
+        LocalDate primeiroDia = LocalDate.now().plusDays(20);
+        Random aleatorio = new Random(42);
+        List<Map<String, Object>> pedidos = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            long barbeiroId = PRIMEIRO_BARBEIRO + aleatorio.nextInt(BARBEIROS);
+            LocalDateTime horario = primeiroDia.plusDays(aleatorio.nextInt(4)).atTime(8, 0)
+                .plusMinutes(15L * aleatorio.nextInt(INICIOS_POR_DIA));
+            pedidos.add(pedido(barbeiroId, horario));
+        }
+
+        Resultado resultado = disparar(pedidos, CLIENTES_SIMULTANEOS);
+
+        assertEquals(pedidos.size(), resultado.aceitas() + resultado.recusadas());
+        assertTrue(resultado.aceitas() > 0);
+        assertEquals(0L, jdbcTemplate.queryForObject(SOBREPOSICOES, Long.class));
+        assertEquals(resultado.aceitas(), jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM agendamentos WHERE barbeiro_id BETWEEN ? AND ? AND data_horario >= ? AND data_horario < ?",
+            Integer.class, PRIMEIRO_BARBEIRO, PRIMEIRO_BARBEIRO + BARBEIROS - 1,
+            primeiroDia.atStartOfDay(), primeiroDia.plusDays(4).atStartOfDay()));
+    }
+
+    // Mesma carga em um barbeiro só (uma trava para todos) e espalhada pelos barbeiros (uma trava
+    // por barbeiro). Os tempos são impressos; o ganho real depende dos núcleos da máquina, então a
+    // asserção só pega uma serialização que atravesse barbeiros
+    @Test
+    void barbeirosDiferentesNaoEsperamUnsPelosOutros() throws Exception {
+        int porBarbeiro = 100;
+        LocalDate diaUmBarbeiro = LocalDate.now().plusDays(30);
+        LocalDate diaVariosBarbeiros = LocalDate.now().plusDays(31);
+        List<Map<String, Object>> umBarbeiro = new ArrayList<>();
+        List<Map<String, Object>> variosBarbeiros = new ArrayList<>();
+        for (int i = 0; i < porBarbeiro * BARBEIROS; i++) {
+            int inicio = i % INICIOS_POR_DIA;
+            umBarbeiro.add(pedido(PRIMEIRO_BARBEIRO, diaUmBarbeiro.atTime(8, 0).plusMinutes(15L * inicio)));
+            variosBarbeiros.add(pedido(PRIMEIRO_BARBEIRO + i % BARBEIROS,
+                diaVariosBarbeiros.atTime(8, 0).plusMinutes(15L * (i / BARBEIROS % INICIOS_POR_DIA))));
+        }
+
+        // Aquecimento: a primeira rodada paga a compilação dos caminhos envolvidos
+        disparar(List.of(pedido(PRIMEIRO_BARBEIRO + 1, diaUmBarbeiro.plusDays(5).atTime(8, 0))), 1);
+
+        long inicioUm = System.nanoTime();
+        Resultado resultadoUm = disparar(umBarbeiro, CLIENTES_SIMULTANEOS);
+        long msUm = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioUm);
+
+        long inicioVarios = System.nanoTime();
+        Resultado resultadoVarios = disparar(variosBarbeiros, CLIENTES_SIMULTANEOS);
+        long msVarios = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioVarios);
+
+        System.out.printf("%d marcações: 1 barbeiro em %d ms (%d aceitas), %d barbeiros em %d ms (%d aceitas), %d núcleos%n",
+            umBarbeiro.size(), msUm, resultadoUm.aceitas(), BARBEIROS, msVarios, resultadoVarios.aceitas(),
+            Runtime.getRuntime().availableProcessors());
+
+        assertEquals(umBarbeiro.size(), resultadoUm.aceitas() + resultadoUm.recusadas());
+        assertEquals(variosBarbeiros.size(), resultadoVarios.aceitas() + resultadoVarios.recusadas());
+        assertEquals(0L, jdbcTemplate.queryForObject(SOBREPOSICOES, Long.class));
+        assertTrue(msVarios < msUm * 2, "espalhar pelos barbeiros não pode custar o dobro de concentrar em um");
+    }
+
+    private Map<String, Object> pedido(long barbeiroId, LocalDateTime horario) {
+        int cliente = clientes.incrementAndGet();
+        return Map.of(
+            "nomeCliente", "Cliente " + cliente,
+            "emailCliente", "cliente" + cliente + "@concorrencia.com",
+            "barbeiroId", barbeiroId,
+            "servicoIds", List.of(CORTE),
+            "dataHorario", horario.toString()
+        );
+    }
+
+    // Todos largam juntos; cada cliente simultâneo pega o próximo pedido assim que termina o anterior
+    private Resultado disparar(List<Map<String, Object>> pedidos, int simultaneos) throws Exception {
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(simultaneos);
+        List<Future<HttpStatusCode>> respostas = new ArrayList<>();
+        try {
+            for (Map<String, Object> corpo : pedidos) {
+                respostas.add(executor.submit(() -> {
+                    largada.await();
+                    ResponseEntity<String> resposta = restTemplate.postForEntity("/api/agendamentos", corpo, String.class);
+                    return resposta.getStatusCode();
+                }));
+            }
+            largada.countDown();
+
+            int aceitas = 0;
+            int recusadas = 0;
+            for (Future<HttpStatusCode> resposta : respostas) {
+                HttpStatusCode status = resposta.get(120, TimeUnit.SECONDS);
+                if (status.equals(HttpStatus.OK)) {
+                    aceitas++;
+                } else if (status.equals(HttpStatus.CONFLICT)) {
+                    recusadas++;
+                }
+            }
+            return new Resultado(aceitas, recusadas);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Resultado(int aceitas, int recusadas) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.barbearia.repository;
+
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.model.StatusAgendamento;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Número de comandos SQL das listagens de agendamentos, medido pelas estatísticas do Hibernate:
+ * uma consulta para os resumos e uma para os serviços de cada lote de até 1000 agendamentos,
+ * qualquer que seja o tamanho da lista, além da leitura da versão que monta o ETag.
+ * As tarefas agendadas ficam para daqui a uma hora para não somarem comandos durante a medição.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "barbearia.lembretes.tick-ms=3600000",
+    "barbearia.lembretes.intervalo-carga-ms=3600000",
+    "barbearia.notificacoes.intervalo-ms=3600000",
+    "barbearia.leituras.intervalo-ms=3600000",
+    "barbearia.nao-lidas.reconciliacao-ms=3600000",
+    "barbearia.login.intervalo-limpeza-ms=3600000",
+    "barbearia.idempotencia.intervalo-limpeza-ms=3600000"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConsultasAgendamentoTest {
+
+    private static final int AGENDAMENTOS = 40;
+    private static final String EMAIL = "contagem@consultas.com";
+
+    // Resumos, serviços e a versão do ETag
+    private static final int COMANDOS_POR_LISTAGEM = 3;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AgendamentoRepository agendamentoRepository;
+
+    private Statistics estatisticas;
+
+    // Gravado direto no banco: sem eventos de notificação nem mensagens disparando consultas em segundo plano
+    @BeforeAll
+    void popular() {
+        jdbcTemplate.update("INSERT INTO clientes (id, nome_completo, email, data_criacao) VALUES (5000, 'Cliente Contagem', ?, CURRENT_TIMESTAMP)", EMAIL);
+        LocalDateTime inicio = LocalDate.now().plusDays(10).atTime(8, 0);
+        for (int i = 0; i < AGENDAMENTOS; i++) {
+            long id = 5000 + i;
+            LocalDateTime horario = inicio.plusHours(i);
+            jdbcTemplate.update("INSERT INTO agendamentos (id, cliente_id, barbeiro_id, data_horario, data_fim, valor_total, status, data_criacao) "
+                + "VALUES (?, 5000, ?, ?, ?, 40.0, ?, CURRENT_TIMESTAMP)",
+                id, 1 + i % 3, horario, horario.plusMinutes(50),
+                (i % 2 == 0 ? StatusAgendamento.PENDENTE : StatusAgendamento.CONFIRMADO).name());
+            jdbcTemplate.update("INSERT INTO agendamento_servicos (agendamento_id, servico_id) VALUES (?, 1)", id);
+            jdbcTemplate.update("INSERT INTO agendamento_servicos (agendamento_id, servico_id) VALUES (?, 2)", id);
+        }
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // As primeiras execuções das tarefas agendadas acontecem logo depois da subida; espera o banco ficar quieto
+    @BeforeEach
+    void aguardarSilencio() throws InterruptedException {
+        long anterior = -1;
+        while (anterior != estatisticas.getPrepareStatementCount()) {
+            anterior = estatisticas.getPrepareStatementCount();
+            Thread.sleep(300);
+        }
+        estatisticas.clear();
+    }
+
+    @Test
+    void listagemCompletaUsaDuasConsultasAlemDaVersao() {
+        assertEquals(AGENDAMENTOS, listar("/api/agendamentos").length);
+        assertEquals(COMANDOS_POR_LISTAGEM, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void listagemDePendentesUsaDuasConsultasAlemDaVersao() {
+        assertEquals(AGENDAMENTOS / 2, listar("/api/agendamentos/pendentes").length);
+        assertEquals(COMANDOS_POR_LISTAGEM, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void listagemDeConfirmadosUsaDuasConsultasAlemDaVersao() {
+        assertEquals(AGENDAMENTOS / 2, listar("/api/agendamentos/confirmados").length);
+        assertEquals(COMANDOS_POR_LISTAGEM, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void listagemPorClienteUsaDuasConsultasAlemDaVersao() {
+        assertEquals(AGENDAMENTOS, listar("/api/agendamentos/cliente/" + EMAIL).length);
+        assertEquals(COMANDOS_POR_LISTAGEM, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void servicosSaoCarregadosEmUmaConsultaPorLoteDeMilIds() {
+        List<AgendamentoResumo> resumos = LongStream.range(0, 2500)
+            .mapToObj(id -> new AgendamentoResumo(id, 1L, "Cliente", EMAIL, 1L, "Barbeiro", null, null, 0.0,
+                StatusAgendamento.PENDENTE, null, null, null))
+            .toList();
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        leitura.executeWithoutResult(status -> agendamentoRepository.comServicos(resumos));
+        assertEquals(3, estatisticas.getPrepareStatementCount());
+    }
+
+    private AgendamentoResumo[] listar(String caminho) {
+        ResponseEntity<AgendamentoResumo[]> resposta = restTemplate.getForEntity(caminho, AgendamentoResumo[].class);
+        assertEquals(HttpStatus.OK, resposta.getStatusCode());
+        return resposta.getBody();
+    }
+}
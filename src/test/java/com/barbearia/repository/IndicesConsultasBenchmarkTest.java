@@ -0,0 +1,197 @@
+package com.barbearia.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Plano e latência das consultas mais usadas com 1 milhão de agendamentos e 1 milhão de mensagens,
+ * antes e depois dos índices da V3. O banco é migrado só até a V2 (tabelas e dados iniciais),
+ * populado, medido, e então recebe as demais migrações e é medido de novo. O H2 indexa sozinho as
+ * colunas de chave estrangeira, então o "antes" já filtra por barbeiro, cliente ou destinatário; no
+ * PostgreSQL, sem esses índices automáticos, o ponto de partida é a varredura da tabela.
+ * Não roda com a suíte: mvn test -Dtest=IndicesConsultasBenchmarkTest -Dbenchmark=true
+ * O que entra no relatório é o impresso; a única asserção é que nenhuma consulta varre a tabela
+ * depois dos índices.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IndicesConsultasBenchmarkTest {
+
+    // Em arquivo: 2 milhões de linhas não precisam caber no heap do surefire. Sem reaproveitar o
+    // resultado anterior: a mesma consulta com os mesmos parâmetros é executada de verdade a cada vez
+    private static final String URL = "jdbc:h2:file:./target/benchmark-indices/banco;OPTIMIZE_REUSE_RESULTS=FALSE";
+
+    private static final int AGENDAMENTOS = 1_000_000;
+    private static final int MENSAGENS = 1_000_000;
+    private static final int CLIENTES = 100_000;
+    private static final int BARBEIROS = 40;
+
+    private static final int AQUECIMENTO = 2;
+    private static final int EXECUCOES = 5;
+
+    // Agendamentos de 30 minutos seguidos por barbeiro, a partir desta data
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private static final long BARBEIRO = 117;
+    private static final LocalDateTime SEMANA = INICIO.plusDays(200);
+
+    @Test
+    void planosELatenciasAntesEDepoisDosIndices() throws Exception {
+        try (Connection conexao = DriverManager.getConnection(URL, "sa", "")) {
+            try (Statement statement = conexao.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+
+            flyway("2").migrate();
+            long inicioCarga = System.nanoTime();
+            popular(conexao);
+            System.out.printf("Carga: %d agendamentos, %d mensagens, %d clientes em %d ms%n",
+                AGENDAMENTOS, MENSAGENS, CLIENTES, (System.nanoTime() - inicioCarga) / 1_000_000);
+
+            List<Medicao> semIndices = medir(conexao);
+
+            flyway(null).migrate();
+            try (Statement statement = conexao.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+            List<Medicao> comIndices = medir(conexao);
+
+            System.out.println();
+            for (int i = 0; i < comIndices.size(); i++) {
+                Medicao antes = semIndices.get(i);
+                Medicao depois = comIndices.get(i);
+                System.out.printf("%-28s %9.2f ms -> %7.2f ms (melhor de %d)%n",
+                    antes.consulta().nome(), antes.melhorMs(), depois.melhorMs(), EXECUCOES);
+                System.out.println("  sem índices: " + antes.plano());
+                System.out.println("  com índices: " + depois.plano());
+            }
+            for (Medicao medicao : comIndices) {
+                assertFalse(medicao.plano().contains("tableScan"), medicao.consulta().nome() + ": " + medicao.plano());
+            }
+        }
+    }
+
+    private static Flyway flyway(String alvo) {
+        var configuracao = Flyway.configure()
+            .dataSource(URL, "sa", "")
+            .locations("classpath:db/migration/comum", "classpath:db/migration/h2");
+        if (alvo != null) {
+            configuracao.target(alvo);
+        }
+        return configuracao.load();
+    }
+
+    // Ids explícitos acima dos dados iniciais; status alternados e mensagens 90% lidas
+    private static void popular(Connection conexao) throws Exception {
+        try (Statement statement = conexao.createStatement()) {
+            statement.executeUpdate("INSERT INTO barbeiros (id, nome, login, senha, ativo, data_criacao) "
+                + "SELECT 100 + X, 'Barbeiro ' || X, 'benchmark' || X, 'x', true, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, " + BARBEIROS + ")");
+            statement.executeUpdate("INSERT INTO clientes (id, nome_completo, email, data_criacao) "
+                + "SELECT 1000 + X, 'Cliente ' || X, 'cliente' || X || '@benchmark.com', CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, " + CLIENTES + ")");
+            statement.executeUpdate("INSERT INTO agendamentos (id, cliente_id, barbeiro_id, data_horario, data_fim, "
+                + "valor_total, status, data_criacao) "
+                + "SELECT 1000000 + X, 1001 + MOD(X, " + CLIENTES + "), 101 + MOD(X, " + BARBEIROS + "), "
+                + "DATEADD('MINUTE', (X / " + BARBEIROS + ") * 30, TIMESTAMP '" + INICIO + "'), "
+                + "DATEADD('MINUTE', (X / " + BARBEIROS + ") * 30 + 30, TIMESTAMP '" + INICIO + "'), 40.0, "
+                + "CASE MOD(X, 4) WHEN 0 THEN 'PENDENTE' WHEN 1 THEN 'CONFIRMADO' WHEN 2 THEN 'CONCLUIDO' ELSE 'CANCELADO' END, "
+                + "CURRENT_TIMESTAMP FROM SYSTEM_RANGE(0, " + (AGENDAMENTOS - 1) + ")");
+            statement.executeUpdate("INSERT INTO mensagens (id, conteudo, data_envio, destinatario_id, lida, tipo) "
+                + "SELECT 1000000 + X, 'Mensagem ' || X, DATEADD('SECOND', X * 60, TIMESTAMP '" + INICIO + "'), "
+                + "101 + MOD(X, " + BARBEIROS + "), MOD(X, 10) <> 0, 'NOVO_AGENDAMENTO' "
+                + "FROM SYSTEM_RANGE(0, " + (MENSAGENS - 1) + ")");
+            statement.execute("ANALYZE");
+        }
+    }
+
+    // SQL equivalente ao gerado para as consultas de AgendamentoRepository, ClienteRepository e MensagemRepository
+    private static List<Consulta> consultas() {
+        Timestamp semana = Timestamp.valueOf(SEMANA);
+        Timestamp fimSemana = Timestamp.valueOf(SEMANA.plusDays(7));
+        Timestamp horario = Timestamp.valueOf(SEMANA.plusHours(3));
+        return List.of(
+            new Consulta("existsSobreposicao",
+                "SELECT COUNT(*) > 0 FROM agendamentos a WHERE a.barbeiro_id = ? AND a.status IN ('PENDENTE', 'CONFIRMADO') "
+                    + "AND a.data_horario > ? AND a.data_horario < ? AND a.data_fim > ?",
+                BARBEIRO, Timestamp.valueOf(SEMANA.plusHours(3).minusHours(24)), Timestamp.valueOf(SEMANA.plusHours(4)), horario),
+            new Consulta("agenda da semana",
+                "SELECT a.id, a.data_horario, c.nome_completo, b.nome FROM agendamentos a "
+                    + "JOIN clientes c ON c.id = a.cliente_id JOIN barbeiros b ON b.id = a.barbeiro_id "
+                    + "WHERE b.id = ? AND a.data_horario BETWEEN ? AND ? ORDER BY a.data_horario",
+                BARBEIRO, semana, fimSemana),
+            new Consulta("intervalos ativos do barbeiro",
+                "SELECT a.id, a.data_horario, a.status FROM agendamentos a WHERE a.barbeiro_id = ? "
+                    + "AND a.status IN ('PENDENTE', 'CONFIRMADO') AND a.data_horario >= ?",
+                BARBEIRO, Timestamp.valueOf(INICIO.plusDays(500))),
+            new Consulta("cliente por email",
+                "SELECT c.id, c.nome_completo FROM clientes c WHERE c.email = ?",
+                "cliente50000@benchmark.com"),
+            new Consulta("agendamentos do cliente",
+                "SELECT a.id, a.data_horario FROM agendamentos a JOIN clientes c ON c.id = a.cliente_id "
+                    + "WHERE c.email = ? ORDER BY a.data_horario",
+                "cliente50000@benchmark.com"),
+            new Consulta("não lidas do barbeiro",
+                "SELECT COUNT(*) FROM mensagens m WHERE m.destinatario_id = ? AND m.lida = false",
+                BARBEIRO),
+            new Consulta("caixa de entrada",
+                "SELECT m.id, m.conteudo, m.data_envio FROM mensagens m WHERE m.destinatario_id = ? "
+                    + "ORDER BY m.data_envio DESC, m.id DESC LIMIT 20",
+                BARBEIRO)
+        );
+    }
+
+    private static List<Medicao> medir(Connection conexao) throws Exception {
+        List<Medicao> medicoes = new ArrayList<>();
+        for (Consulta consulta : consultas()) {
+            String plano;
+            try (PreparedStatement explain = preparar(conexao, "EXPLAIN " + consulta.sql(), consulta.parametros());
+                 ResultSet resultado = explain.executeQuery()) {
+                resultado.next();
+                plano = resultado.getString(1).replaceAll("\\s+", " ");
+            }
+            double melhorMs = Double.MAX_VALUE;
+            try (PreparedStatement statement = preparar(conexao, consulta.sql(), consulta.parametros())) {
+                for (int i = 0; i < AQUECIMENTO + EXECUCOES; i++) {
+                    long inicio = System.nanoTime();
+                    try (ResultSet resultado = statement.executeQuery()) {
+                        while (resultado.next()) {
+                            // lê tudo, como o repositório
+                        }
+                    }
+                    if (i >= AQUECIMENTO) {
+                        melhorMs = Math.min(melhorMs, (System.nanoTime() - inicio) / 1_000_000.0);
+                    }
+                }
+            }
+            medicoes.add(new Medicao(consulta, plano, melhorMs));
+        }
+        return medicoes;
+    }
+
+    private static PreparedStatement preparar(Connection conexao, String sql, Object[] parametros) throws Exception {
+        PreparedStatement statement = conexao.prepareStatement(sql);
+        for (int i = 0; i < parametros.length; i++) {
+            statement.setObject(i + 1, parametros[i]);
+        }
+        return statement;
+    }
+
+    private record Consulta(String nome, String sql, Object... parametros) {
+    }
+
+    private record Medicao(Consulta consulta, String plano, double melhorMs) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.barbearia.service;
+
+import com.barbearia.repository.BarbeiroRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Um cliente que parou de ler prende o envio em andamento no socket. Com um único escritor, o
+ * envio preso não pode travar quem publica nem deixar as outras conexões sem escritor até o
+ * timeout de escrita do Tomcat. Os buffers dos sockets ficam pequenos dos dois lados para o envio
+ * parar depois de poucos eventos.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "barbearia.eventos.escritores=1",
+    "barbearia.eventos.capacidade-conexao=10000",
+    "barbearia.eventos.prazo-envio-ms=300",
+    "barbearia.eventos.verificacao-envio-ms=100"
+})
+class EventosBarbeiroServiceTest {
+
+    private static final long BARBEIRO_LENTO = 1L;
+    private static final long BARBEIRO_ATENTO = 2L;
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private EventosBarbeiroService eventosBarbeiroService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private BarbeiroRepository barbeiroRepository;
+
+    @TestConfiguration
+    static class BufferPequeno {
+
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> bufferDeEnvioPequeno() {
+            return factory -> factory.addConnectorCustomizers(connector -> connector.setProperty("socket.txBufSize", "4096"));
+        }
+    }
+
+    @Test
+    void envioPresoNaoDeixaOutrasConexoesSemEscritor() throws Exception {
+        try (Socket lento = conectar(BARBEIRO_LENTO); Socket atento = conectar(BARBEIRO_ATENTO)) {
+            BufferedReader leitorAtento = leitor(atento);
+
+            // O lento nunca mais lê: os buffers enchem e o envio para, com a fila dele ainda longe
+            // do limite. Publicar continua imediato
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+                for (int i = 0; i < 2000; i++) {
+                    eventosBarbeiroService.naoLidasAlteradas(BARBEIRO_LENTO, 1);
+                }
+            });
+            Thread.sleep(500);
+
+            CompletableFuture<Void> recebido = CompletableFuture.runAsync(() -> aguardarEvento(leitorAtento));
+            eventosBarbeiroService.naoLidasAlteradas(BARBEIRO_ATENTO, 1);
+            recebido.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // Abre o stream e lê só até o comentário de abertura
+    private Socket conectar(long barbeiroId) throws Exception {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(1024);
+        socket.connect(new InetSocketAddress("localhost", porta));
+        String token = tokenService.emitir(barbeiroRepository.findById(barbeiroId).orElseThrow()).accessToken();
+        OutputStream saida = socket.getOutputStream();
+        saida.write(("GET /api/barbeiros/" + barbeiroId + "/eventos HTTP/1.1\r\n"
+            + "Host: localhost\r\n"
+            + "Accept: text/event-stream\r\n"
+            + "Authorization: Bearer " + token + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        saida.flush();
+        // Sem buffer à frente: nada além da abertura é consumido do socket
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1);
+        String linha = leitor.readLine();
+        while (linha != null && !linha.contains("conectado")) {
+            linha = leitor.readLine();
+        }
+        return socket;
+    }
+
+    private static BufferedReader leitor(Socket socket) throws Exception {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static void aguardarEvento(BufferedReader leitor) {
+        try {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                if (linha.startsWith("event:") && linha.contains("nao-lidas")) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        throw new IllegalStateException("Stream encerrado sem o evento");
+    }
+}
@@ -0,0 +1,112 @@
+package com.barbearia.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Chaves reservadas no banco por uma instância que caiu antes de concluir: vencido o prazo da
+ * reserva outra requisição assume a execução; dentro do prazo continua esperando pela dona.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "barbearia.idempotencia.persistir=true",
+    "barbearia.idempotencia.espera-ms=500"
+})
+class IdempotenciaServiceTest {
+
+    private static final String ESCOPO = "teste:idempotencia";
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reservaVencidaEhAssumidaPorOutraRequisicao() {
+        reservaOrfa("vencida", LocalDateTime.now().minusMinutes(1));
+        AtomicInteger execucoes = new AtomicInteger();
+
+        ResponseEntity<?> resposta = executar("vencida", execucoes);
+
+        assertEquals(HttpStatus.OK, resposta.getStatusCode());
+        assertEquals(1, execucoes.get());
+        assertEquals(200, jdbcTemplate.queryForObject(
+            "SELECT status FROM chaves_idempotencia WHERE chave = ?", Integer.class, ESCOPO + ":vencida"));
+    }
+
+    @Test
+    void reservaDentroDoPrazoNaoEhAssumida() {
+        reservaOrfa("no-prazo", LocalDateTime.now().plusMinutes(1));
+        AtomicInteger execucoes = new AtomicInteger();
+
+        ResponseEntity<?> resposta = executar("no-prazo", execucoes);
+
+        assertEquals(HttpStatus.CONFLICT, resposta.getStatusCode());
+        assertEquals(0, execucoes.get());
+    }
+
+    // Sem Spring: só o mapa em memória, com limite de duas chaves
+    @Test
+    void limiteNaoDescartaChaveEmExecucao() throws Exception {
+        IdempotenciaService servico = new IdempotenciaService(2);
+        AtomicInteger execucoes = new AtomicInteger();
+        CountDownLatch iniciou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> longa = CompletableFuture.supplyAsync(() ->
+            servico.executar("longa", ESCOPO, "corpo", () -> {
+                execucoes.incrementAndGet();
+                iniciou.countDown();
+                aguardar(liberar);
+                return ResponseEntity.ok("longa");
+            }));
+        iniciou.await(5, TimeUnit.SECONDS);
+
+        servico.executar("b", ESCOPO, "corpo", () -> ResponseEntity.ok("b"));
+        servico.executar("c", ESCOPO, "corpo", () -> ResponseEntity.ok("c"));
+        ResponseEntity<?> repeticao = servico.executar("longa", ESCOPO, "corpo", () -> {
+            execucoes.incrementAndGet();
+            return ResponseEntity.ok("longa");
+        });
+        liberar.countDown();
+
+        assertEquals(HttpStatus.CONFLICT, repeticao.getStatusCode());
+        assertEquals(HttpStatus.OK, longa.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(1, execucoes.get());
+    }
+
+    private ResponseEntity<?> executar(String chave, AtomicInteger execucoes) {
+        return idempotenciaService.executar(chave, ESCOPO, "corpo", () -> {
+            execucoes.incrementAndGet();
+            return ResponseEntity.ok("executada");
+        });
+    }
+
+    // Linha sem status, como a deixada por uma instância que caiu no meio da execução
+    private void reservaOrfa(String chave, LocalDateTime reservadaAte) {
+        jdbcTemplate.update("INSERT INTO chaves_idempotencia (chave, impressao, criado_em, expira_em, reservada_ate) "
+                + "VALUES (?, ?, CURRENT_TIMESTAMP, ?, ?)",
+            ESCOPO + ":" + chave, IdempotenciaService.impressao(ESCOPO, "corpo"),
+            LocalDateTime.now().plusHours(1), reservadaAte);
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
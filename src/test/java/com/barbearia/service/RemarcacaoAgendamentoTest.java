@@ -0,0 +1,53 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.AgendamentoResumo;
+import com.barbearia.dto.NovoAgendamento;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Trocar só os serviços também muda o fim do agendamento: o novo intervalo passa pela mesma
+ * conferência de horário que a troca de data.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.jpa.show-sql=false")
+class RemarcacaoAgendamentoTest {
+
+    // Corte Masculino: 30 minutos; Corte + Barba: 45 minutos
+    private static final long CORTE = 1L;
+    private static final long CORTE_E_BARBA = 5L;
+
+    @Autowired
+    private AgendamentoService agendamentoService;
+
+    @Test
+    void servicosMaisLongosNaoPodemInvadirOProximoAgendamento() {
+        LocalDateTime inicio = LocalDate.now().plusDays(7).atTime(10, 0);
+        AgendamentoResumo primeiro = agendar("remarcacao1@teste.com", inicio);
+        agendar("remarcacao2@teste.com", inicio.plusMinutes(30));
+
+        assertThrows(HorarioIndisponivelException.class,
+            () -> agendamentoService.atualizarAgendamento(primeiro.id(), null, List.of(CORTE_E_BARBA)));
+    }
+
+    @Test
+    void servicosMaisLongosComHorarioLivreSaoAceitos() {
+        LocalDateTime inicio = LocalDate.now().plusDays(8).atTime(10, 0);
+        AgendamentoResumo agendamento = agendar("remarcacao3@teste.com", inicio);
+
+        agendamentoService.atualizarAgendamento(agendamento.id(), null, List.of(CORTE_E_BARBA));
+
+        assertEquals(inicio.plusMinutes(45), agendamentoService.buscarResumoPorId(agendamento.id()).orElseThrow().dataFim());
+    }
+
+    private AgendamentoResumo agendar(String email, LocalDateTime horario) {
+        return agendamentoService.agendar(new NovoAgendamento("Cliente", email, 3L, List.of(CORTE), horario, null));
+    }
+}
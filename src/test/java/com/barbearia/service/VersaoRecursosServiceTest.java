@@ -0,0 +1,67 @@
+package com.barbearia.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * As versões ficam no banco: o que uma instância confirma, qualquer outra enxerga ao ler a linha.
+ * Aqui a "outra instância" é a leitura direta da tabela.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.jpa.show-sql=false")
+class VersaoRecursosServiceTest {
+
+    @Autowired
+    private VersaoRecursosService versaoRecursosService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void alteracaoConfirmadaIncrementaAVersaoNoBanco() {
+        long antes = versaoNoBanco("AGENDA:2");
+        String etagAntes = versaoRecursosService.versaoAgenda(2L).etag();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            versaoRecursosService.agendaAlterada(2L);
+            versaoRecursosService.agendaAlterada(2L);
+        });
+
+        assertEquals(antes + 1, versaoNoBanco("AGENDA:2"));
+        assertNotEquals(etagAntes, versaoRecursosService.versaoAgenda(2L).etag());
+    }
+
+    @Test
+    void alteracaoDesfeitaNaoMudaAVersao() {
+        long antes = versaoNoBanco("CLIENTES");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            versaoRecursosService.alterado(VersaoRecursosService.Recurso.CLIENTES);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(antes, versaoNoBanco("CLIENTES"));
+    }
+
+    @Test
+    void versaoDosAgendamentosSomaAsAgendas() {
+        String antes = versaoRecursosService.versao(VersaoRecursosService.Recurso.AGENDAMENTOS).etag();
+
+        versaoRecursosService.agendaAlterada(1L);
+
+        assertNotEquals(antes, versaoRecursosService.versao(VersaoRecursosService.Recurso.AGENDAMENTOS).etag());
+    }
+
+    private long versaoNoBanco(String chave) {
+        return jdbcTemplate.queryForObject("SELECT versao FROM versoes_recursos WHERE chave = ?", Long.class, chave);
+    }
+}